@@ -0,0 +1,94 @@
+package io.preboot.refapp.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Gradient based concurrency limit: the limit shrinks when recent latency rises above the long term baseline and grows
+// by a small queue allowance while latency stays flat. Samples are collected lock free into a window of windowSize
+// samples; the thread that fills the window folds its mean latency into the limit, unless another thread is already
+// doing so, in which case its sample simply counts towards the next window. Reads of the current limit are lock free.
+class AdaptiveConcurrencyLimit {
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_DECAY = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock(); // only ever tried, samples never wait for it
+
+    private double estimatedLimit; // guarded by updateLock
+    private double longRttNanos; // guarded by updateLock
+    private volatile int limit;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, 1);
+    }
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int windowSize) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limit bounds: min " + minLimit + ", max " + maxLimit);
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Sample window must be positive, was " + windowSize);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSize = windowSize;
+        this.estimatedLimit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    void onSample(long rttNanos, int inFlight) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        windowMaxInFlight.accumulateAndGet(inFlight, Math::max);
+        if (windowSamples.sum() >= windowSize && updateLock.tryLock()) {
+            try {
+                closeWindow();
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    // A sample recorded while the window is reset may land half in this window and half in the next, which only
+    // skews one mean by one sample
+    private void closeWindow() {
+        final long samples = windowSamples.sumThenReset();
+        if (samples == 0) {
+            return; // another thread closed this window already
+        }
+        final double rttNanos = (double) windowRttNanos.sumThenReset() / samples;
+        final int inFlight = windowMaxInFlight.getAndSet(0);
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos = longRttNanos * (1 - LONG_RTT_DECAY) + rttNanos * LONG_RTT_DECAY;
+        }
+        if (longRttNanos / rttNanos > 2) {
+            // latency dropped sharply (e.g. a dependency recovered), let the baseline follow quickly
+            longRttNanos = rttNanos * 2.0;
+        }
+        if (inFlight < estimatedLimit / 2) {
+            return; // not enough load to tell anything about the limit
+        }
+        final double gradient = Math.clamp(TOLERANCE * longRttNanos / rttNanos, 0.5, 1.0);
+        final double queueAllowance = Math.sqrt(estimatedLimit);
+        final double newLimit = estimatedLimit * gradient + queueAllowance;
+        estimatedLimit = Math.clamp(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+}
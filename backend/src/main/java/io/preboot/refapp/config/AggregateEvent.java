@@ -0,0 +1,7 @@
+package io.preboot.refapp.config;
+
+// Events published through the outbox backed async publisher are delivered in publish order per aggregate key.
+// Events that do not implement this interface are stored without a key: unordered, each retried on its own.
+public interface AggregateEvent {
+    String aggregateKey();
+}
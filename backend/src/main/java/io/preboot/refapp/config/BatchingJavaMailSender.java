@@ -0,0 +1,362 @@
+package io.preboot.refapp.config;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+// JavaMailSender that funnels every message through a small pool of sender threads, each holding its own SMTP
+// connection open across messages. Callers still block until their message is accepted by the server (so a failed email
+// fails its task and is retried), but concurrent callers no longer pay a TCP + TLS + AUTH handshake each. Whatever
+// queued up while a sender was busy goes out as its next batch. Sends are paced to the rate limit of the sending
+// provider (all connections together) and to the limits of the receiving providers, keyed by recipient domain.
+// A caller waits at most the send timeout; a message still queued by then is withdrawn and never sent.
+@Slf4j
+class BatchingJavaMailSender extends JavaMailSenderImpl implements SmartLifecycle {
+    private static final PendingMessage STOP = new PendingMessage(null, null, null, null);
+    private static final String SENDING_PROVIDER = "";
+
+    private final int batchSize;
+    private final int connectionCount;
+    private final int maxMessagesPerConnection;
+    private final long sendIntervalNanos;
+    private final Map<String, Long> domainSendIntervalNanos;
+    private final long idleTimeoutNanos;
+    private final Duration sendTimeout;
+
+    private final BlockingQueue<PendingMessage> queue = new LinkedBlockingQueue<>(); // bounded by the blocked callers
+    private final ReentrantLock lifecycleLock = new ReentrantLock(); // keeps STOP the last elements of the queue
+    private final GcraRateLimiter rateLimiter = new GcraRateLimiter(1_000, Duration.ofMinutes(1));
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder failedMessages = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+
+    private volatile boolean running; // guarded by lifecycleLock for writes
+    private final List<Thread> senderThreads = new ArrayList<>();
+
+    BatchingJavaMailSender(
+            int batchSize,
+            int connectionCount,
+            int maxMessagesPerConnection,
+            int maxMessagesPerSecond,
+            Map<String, Integer> domainMessagesPerSecond,
+            Duration idleTimeout,
+            Duration sendTimeout) {
+        if (batchSize < 1 || connectionCount < 1 || maxMessagesPerConnection < 1) {
+            throw new IllegalArgumentException(
+                    "batchSize, connectionCount and maxMessagesPerConnection must be positive");
+        }
+        this.batchSize = batchSize;
+        this.connectionCount = connectionCount;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.sendIntervalNanos = sendInterval(maxMessagesPerSecond);
+        this.domainSendIntervalNanos = new HashMap<>();
+        domainMessagesPerSecond.forEach((domain, limit) -> {
+            if (limit > 0) {
+                domainSendIntervalNanos.put(domain.toLowerCase(Locale.ROOT), sendInterval(limit));
+            }
+        });
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.sendTimeout = sendTimeout;
+    }
+
+    Stats stats() {
+        return new Stats(queue.size(), sentMessages.sum(), failedMessages.sum(), batches.sum(), connections.sum());
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        final List<PendingMessage> pending = new ArrayList<>(mimeMessages.length);
+        lifecycleLock.lock();
+        try {
+            if (!running) {
+                super.doSend(mimeMessages, originalMessages); // before start and after stop send on the caller's thread
+                return;
+            }
+            for (int i = 0; i < mimeMessages.length; i++) {
+                final Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+                final PendingMessage message = new PendingMessage(
+                        mimeMessages[i], original, new CompletableFuture<>(), new AtomicBoolean());
+                pending.add(message);
+                queue.add(message);
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+
+        final Map<Object, Exception> failures = new LinkedHashMap<>();
+        final long deadline = System.nanoTime() + sendTimeout.toNanos();
+        for (PendingMessage message : pending) {
+            try {
+                message.result().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                failures.put(message.original(), (Exception) e.getCause());
+            } catch (TimeoutException e) {
+                failures.put(message.original(), timedOut(message));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MailSendException("Interrupted while waiting for the email to be sent", e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new MailSendException(failures);
+        }
+    }
+
+    private MailSendException timedOut(PendingMessage message) {
+        if (message.claim()) {
+            queue.remove(message);
+            failedMessages.increment();
+            return new MailSendException("Email not sent within " + sendTimeout + ", withdrawn");
+        }
+        return new MailSendException("Email still being sent after " + sendTimeout + ", it may still be delivered");
+    }
+
+    @Override
+    public void start() {
+        lifecycleLock.lock();
+        try {
+            running = true;
+            for (int i = 0; i < connectionCount; i++) {
+                senderThreads.add(Thread.ofPlatform().name("mail-sender-" + i).daemon().start(this::sendLoop));
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+        log.info(
+                "Batching mail sender started for {}:{}, {} connections, {} messages per connection",
+                getHost(),
+                getPort(),
+                connectionCount,
+                maxMessagesPerConnection);
+    }
+
+    @Override
+    public void stop() {
+        lifecycleLock.lock();
+        try {
+            running = false;
+            for (int i = 0; i < senderThreads.size(); i++) {
+                queue.add(STOP); // one per sender, messages already queued are still sent
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        try {
+            for (Thread senderThread : senderThreads) {
+                senderThread.join(Duration.ofNanos(Math.max(1, deadline - System.nanoTime())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        senderThreads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void sendLoop() {
+        final Connection connection = new Connection();
+        try {
+            boolean stopped = false;
+            while (!stopped) {
+                final PendingMessage first = queue.poll(idleTimeoutNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    connection.close(); // idle, don't hold a server slot
+                    continue;
+                }
+                final List<PendingMessage> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                final int stops = (int) batch.stream().filter(message -> message == STOP).count();
+                if (stops > 0) {
+                    batch.removeIf(message -> message == STOP);
+                    for (int i = 1; i < stops; i++) {
+                        queue.add(STOP); // meant for the other senders
+                    }
+                    stopped = true;
+                }
+                if (!batch.isEmpty()) {
+                    send(batch, connection);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final List<PendingMessage> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            remaining.stream()
+                    .filter(message -> message != STOP)
+                    .forEach(message -> fail(message, new MailSendException("Mail sender stopped before sending", e)));
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void send(List<PendingMessage> batch, Connection connection) {
+        batches.increment();
+        for (int i = 0; i < batch.size(); i++) {
+            final PendingMessage message = batch.get(i);
+            if (message.claimed()) {
+                continue; // withdrawn by its caller after the send timeout
+            }
+            try {
+                connection.ensureOpen();
+            } catch (MessagingException | RuntimeException e) {
+                // the server is unreachable or rejects us, fail the rest of the batch instead of retrying per message
+                final MailException failure = e instanceof AuthenticationFailedException
+                        ? new MailAuthenticationException(e)
+                        : new MailSendException("Mail server connection failed", e);
+                batch.subList(i, batch.size()).forEach(pending -> fail(pending, failure));
+                return;
+            }
+            try {
+                pace(message.mimeMessage());
+                if (!message.claim()) {
+                    continue;
+                }
+                connection.send(message.mimeMessage());
+                message.result().complete(null);
+                sentMessages.increment();
+            } catch (MessagingException | RuntimeException e) {
+                failedMessages.increment();
+                message.result().completeExceptionally(e);
+            }
+        }
+        log.debug("Sent batch of {} emails", batch.size());
+    }
+
+    private void fail(PendingMessage message, Exception e) {
+        if (message.claim()) {
+            failedMessages.increment();
+            message.result().completeExceptionally(e);
+        }
+    }
+
+    // Waits for the sending provider's limit and the limit of every receiving provider of the message
+    private void pace(MimeMessage mimeMessage) throws MessagingException {
+        if (sendIntervalNanos > 0) {
+            acquire(SENDING_PROVIDER, sendIntervalNanos);
+        }
+        if (domainSendIntervalNanos.isEmpty()) {
+            return;
+        }
+        final Address[] recipients = mimeMessage.getAllRecipients();
+        if (recipients == null) {
+            return;
+        }
+        final Set<String> domains = new HashSet<>();
+        for (Address recipient : recipients) {
+            if (recipient instanceof InternetAddress address && address.getAddress() != null) {
+                final String email = address.getAddress();
+                domains.add(email.substring(email.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT));
+            }
+        }
+        for (String domain : domains) {
+            final Long interval = domainSendIntervalNanos.get(domain);
+            if (interval != null) {
+                acquire(domain, interval);
+            }
+        }
+    }
+
+    private void acquire(String provider, long intervalNanos) {
+        long waitNanos;
+        while ((waitNanos = rateLimiter.tryAcquire(provider, intervalNanos, 0)) > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    private static long sendInterval(int messagesPerSecond) {
+        return messagesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / messagesPerSecond : 0;
+    }
+
+    // Used by its sender thread only
+    private class Connection {
+        private Transport transport;
+        private int sentOverConnection;
+
+        void ensureOpen() throws MessagingException {
+            if (transport != null && transport.isConnected() && sentOverConnection < maxMessagesPerConnection) {
+                return;
+            }
+            close();
+            transport = connectTransport();
+            sentOverConnection = 0;
+            connections.increment();
+        }
+
+        void send(MimeMessage mimeMessage) throws MessagingException {
+            // same preparation as JavaMailSenderImpl.doSend
+            if (mimeMessage.getSentDate() == null) {
+                mimeMessage.setSentDate(new Date());
+            }
+            final String messageId = mimeMessage.getMessageID();
+            mimeMessage.saveChanges();
+            if (messageId != null) {
+                mimeMessage.setHeader("Message-ID", messageId);
+            }
+            final Address[] addresses = mimeMessage.getAllRecipients();
+            sentOverConnection++;
+            transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+        }
+
+        void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close mail server connection", e);
+            }
+            transport = null;
+        }
+    }
+
+    // Claimed once, by the sender thread sending or failing it, or by its caller withdrawing it after the send timeout
+    private record PendingMessage(
+            MimeMessage mimeMessage, Object original, CompletableFuture<Void> result, AtomicBoolean state) {
+        boolean claim() {
+            return state.compareAndSet(false, true);
+        }
+
+        boolean claimed() {
+            return state.get();
+        }
+    }
+
+    record Stats(int queuedMessages, long sentMessages, long failedMessages, long batches, long connections) {}
+}
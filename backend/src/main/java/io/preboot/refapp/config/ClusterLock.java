@@ -0,0 +1,76 @@
+package io.preboot.refapp.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Cluster wide mutual exclusion for jobs that must run on a single node, on a Postgres session advisory lock. The
+// lock lives on one pooled connection held for the duration of the action. That connection is bound to the thread the
+// way a transaction's is, so the action's JdbcTemplate calls and transactions run on it instead of taking a second
+// connection from the pool, and the action is still free to run any number of short transactions. The lock is
+// released by the database if the node dies; a connection whose unlock failed is aborted, not returned to the pool
+// still holding the lock.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ClusterLock {
+    private final JdbcTemplate jdbcTemplate;
+
+    // Runs the action and returns true, or returns false right away when another node holds the lock. Must not be
+    // called within a transaction, the action runs outside of it on the lock's connection.
+    boolean runIfAvailable(long key, Runnable action) {
+        final DataSource dataSource = jdbcTemplate.getDataSource();
+        if (TransactionSynchronizationManager.hasResource(dataSource)) {
+            throw new IllegalStateException("Cluster lock " + key + " taken within a transaction");
+        }
+        final Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)", key)) {
+                return false;
+            }
+            TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection));
+            try {
+                action.run();
+                return true;
+            } finally {
+                TransactionSynchronizationManager.unbindResource(dataSource);
+                unlock(connection, key);
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("Cluster lock " + key, null, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static void unlock(Connection connection, long key) {
+        try {
+            advisoryLock(connection, "SELECT pg_advisory_unlock(?)", key);
+        } catch (SQLException e) {
+            log.warn("Releasing cluster lock {} failed, closing its connection", key, e);
+            try {
+                connection.abort(Runnable::run); // ends the database session and with it the lock
+            } catch (SQLException abortFailed) {
+                log.error("Connection holding cluster lock {} could not be aborted", key, abortFailed);
+            }
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+}
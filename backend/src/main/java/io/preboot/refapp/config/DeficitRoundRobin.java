@@ -0,0 +1,58 @@
+package io.preboot.refapp.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Deficit round robin over the tenants with queued tasks. Every round a tenant earns quantum x weight credits and gets
+// as many tasks released as it has credits, capped by its free in-flight slots. A tenant that runs out of tasks loses
+// its credits, unused credits carry over by at most one quantum, and when the round budget runs out the next round
+// resumes with the following tenant. Used by the releasing thread only.
+class DeficitRoundRobin {
+    private final FairTaskProperties properties;
+    private final Map<UUID, Long> deficits = new HashMap<>();
+    private UUID lastServed;
+
+    DeficitRoundRobin(FairTaskProperties properties) {
+        this.properties = properties;
+    }
+
+    // Number of tasks to release per tenant, in release order
+    Map<UUID, Integer> allocate(Map<UUID, FairTaskScheduler.TenantStats> tenants, int budget) {
+        final List<UUID> active = tenants.entrySet().stream()
+                .filter(entry -> entry.getValue().queued() > 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        deficits.keySet().retainAll(active);
+        final Map<UUID, Integer> allocation = new LinkedHashMap<>();
+        if (active.isEmpty()) {
+            return allocation;
+        }
+        final int start = lastServed == null ? 0 : nextIndex(active, lastServed);
+        int remaining = budget;
+        for (int i = 0; i < active.size() && remaining > 0; i++) {
+            final UUID tenant = active.get((start + i) % active.size());
+            final FairTaskScheduler.TenantStats stats = tenants.get(tenant);
+            final long quantum = (long) properties.quantum() * properties.weight(tenant);
+            final long deficit = deficits.getOrDefault(tenant, 0L) + quantum;
+            final long freeSlots = Math.max(0, properties.maxInFlightPerTenant() - stats.inFlight());
+            final int count = (int) Math.min(Math.min(deficit, freeSlots), Math.min(remaining, stats.queued()));
+            if (count > 0) {
+                allocation.put(tenant, count);
+                remaining -= count;
+            }
+            deficits.put(tenant, count >= stats.queued() ? 0 : Math.min(deficit - count, quantum));
+            lastServed = tenant;
+        }
+        return allocation;
+    }
+
+    private static int nextIndex(List<UUID> sortedTenants, UUID tenant) {
+        final int index = Collections.binarySearch(sortedTenants, tenant);
+        return (index >= 0 ? index + 1 : -index - 1) % sortedTenants.size();
+    }
+}
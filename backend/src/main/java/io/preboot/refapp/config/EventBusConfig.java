@@ -1,15 +1,22 @@
 package io.preboot.refapp.config;
 
+import io.micrometer.observation.ObservationRegistry;
 import io.preboot.eventbus.EventPublisher;
 import io.preboot.eventbus.LocalAsynchronousEventPublisher;
 import io.preboot.eventbus.LocalEventHandlerRepository;
 import io.preboot.eventbus.LocalEventPublisher;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Configuration
 class EventBusConfig {
@@ -20,14 +27,57 @@ class EventBusConfig {
 
     @Bean
     @Primary
-    EventPublisher eventPublisher(LocalEventHandlerRepository localEventHandlerRepository) {
-        return new LocalEventPublisher(localEventHandlerRepository);
+    EventPublisher eventPublisher(
+            LocalEventHandlerRepository localEventHandlerRepository,
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new ObservedEventPublisher(
+                new LocalEventPublisher(localEventHandlerRepository),
+                observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
+                "events.publish");
     }
 
     @Bean
     @Qualifier("async") // usage example: @Qualifier("async") EventPublisher eventPublisher
+    @ConditionalOnProperty(
+            name = "app.event-bus.async-publisher",
+            havingValue = "virtual-threads",
+            matchIfMissing = true)
     EventPublisher asyncEventPublisher(LocalEventHandlerRepository localEventHandlerRepository) {
         return new LocalAsynchronousEventPublisher(
                 localEventHandlerRepository, new VirtualThreadTaskExecutor("async-event-publisher"));
     }
+
+    @Bean
+    @Qualifier("async") // events are stored in the caller's transaction and delivered by the OutboxDispatcher
+    @ConditionalOnProperty(name = "app.event-bus.async-publisher", havingValue = "outbox")
+    EventPublisher outboxEventPublisher(
+            JdbcTemplate jdbcTemplate, PayloadCodec payloadCodec, OutboxDispatcher outboxDispatcher) {
+        return new OutboxEventPublisher(jdbcTemplate, payloadCodec, outboxDispatcher);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.event-bus.async-publisher", havingValue = "outbox")
+    OutboxDispatcher outboxDispatcher(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PayloadCodec payloadCodec,
+            EventPublisher eventPublisher,
+            @Value("${app.event-bus.outbox.batch-size:100}") int batchSize,
+            @Value("${app.event-bus.outbox.max-in-flight:16}") int maxInFlight,
+            @Value("${app.event-bus.outbox.poll-interval:1s}") Duration pollInterval,
+            @Value("${app.event-bus.outbox.max-retry-delay:1h}") Duration maxRetryDelay,
+            @Value("${app.event-bus.outbox.max-attempts:20}") int maxAttempts,
+            @Value("${app.event-bus.outbox.claim-timeout:5m}") Duration claimTimeout) {
+        return new OutboxDispatcher(
+                jdbcTemplate,
+                transactionTemplate,
+                payloadCodec,
+                eventPublisher,
+                batchSize,
+                maxInFlight,
+                pollInterval,
+                maxRetryDelay,
+                maxAttempts,
+                claimTimeout);
+    }
 }
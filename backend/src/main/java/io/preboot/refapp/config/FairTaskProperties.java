@@ -0,0 +1,34 @@
+package io.preboot.refapp.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("app.task-runner.fairness")
+record FairTaskProperties(
+        Integer quantum,
+        Integer maxInFlightPerTenant,
+        Integer maxQueuedPerTenant,
+        Integer releaseBatchSize,
+        Duration pollInterval,
+        Duration inFlightTimeout,
+        Map<UUID, Integer> weights) {
+    FairTaskProperties {
+        quantum = quantum == null ? 10 : quantum;
+        maxInFlightPerTenant = maxInFlightPerTenant == null ? 20 : maxInFlightPerTenant;
+        maxQueuedPerTenant = maxQueuedPerTenant == null ? 100_000 : maxQueuedPerTenant;
+        releaseBatchSize = releaseBatchSize == null ? 200 : releaseBatchSize;
+        pollInterval = pollInterval == null ? Duration.ofSeconds(1) : pollInterval;
+        inFlightTimeout = inFlightTimeout == null ? Duration.ofMinutes(15) : inFlightTimeout;
+        weights = weights == null ? Map.of() : Map.copyOf(weights);
+        if (quantum < 1 || maxInFlightPerTenant < 1 || releaseBatchSize < 1) {
+            throw new IllegalArgumentException(
+                    "Task fairness quantum, max-in-flight-per-tenant and release-batch-size must be positive");
+        }
+    }
+
+    int weight(UUID tenantId) {
+        return Math.max(1, weights.getOrDefault(tenantId, 1));
+    }
+}
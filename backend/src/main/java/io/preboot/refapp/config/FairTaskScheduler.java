@@ -0,0 +1,310 @@
+package io.preboot.refapp.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.preboot.eventbus.EventPublisher;
+import io.preboot.eventbus.tasks.TaskPublisher;
+import io.preboot.refapp.exception.TooManyRequestsException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Tenant fair front of the task queue. Submitted tasks wait in a per tenant backlog (tenant_task_backlog) and one node
+// at a time releases them into the TaskPublisher by deficit round robin, keeping at most max-in-flight-per-tenant
+// released but unfinished tasks per tenant. A tenant enqueuing a 100k task import therefore only delays its own tasks,
+// other tenants' tasks keep entering the queue right behind at most a few rounds of the import. A released task carries
+// its backlog row id (ReleasedTenantTask) and deletes exactly that row when its first attempt ends. A failing task is
+// retried by the task runner without a slot, so a poison task does not hold back its tenant.
+@Slf4j
+public class FairTaskScheduler implements SmartLifecycle {
+    private static final long RELEASE_LOCK_KEY = 0x66616972L; // "fair"
+    private static final String INSERT_TASK =
+            "INSERT INTO tenant_task_backlog (tenant_id, task_type, payload) VALUES (?, ?, ?::jsonb)";
+    private static final String SELECT_TENANTS =
+            """
+            SELECT tenant_id,
+                   count(*) FILTER (WHERE released_at IS NULL) AS queued,
+                   count(*) FILTER (WHERE released_at IS NOT NULL) AS in_flight
+            FROM tenant_task_backlog
+            GROUP BY tenant_id
+            """;
+    private static final String SELECT_QUEUED =
+            """
+            SELECT id, task_type, payload FROM tenant_task_backlog
+            WHERE tenant_id = ? AND released_at IS NULL AND release_after <= now()
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String COMPLETE_TASK = "DELETE FROM tenant_task_backlog WHERE id = ?";
+    // A task whose class is missing stays queued, a later deployment may bring the class back
+    private static final String HOLD_UNREADABLE =
+            "UPDATE tenant_task_backlog SET release_after = now() + interval '5 minutes' WHERE id = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate slotTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TaskPublisher taskPublisher;
+    private final ClusterLock clusterLock;
+    private final FairTaskProperties properties;
+    private final Duration inFlightTimeout;
+    private final DeficitRoundRobin roundRobin;
+    private final Semaphore wakeUpSignal = new Semaphore(0);
+
+    private final LongAdder releasedTasks = new LongAdder();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    private volatile Map<UUID, TenantStats> tenants = Map.of(); // refreshed every poll interval on every node
+    private volatile boolean running;
+    private Thread releaseThread;
+
+    FairTaskScheduler(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            TaskPublisher taskPublisher,
+            ClusterLock clusterLock,
+            FairTaskProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        // frees the slot of a failed attempt even when the attempt's own transaction rolls back
+        this.slotTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.slotTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.taskPublisher = taskPublisher;
+        this.clusterLock = clusterLock;
+        this.properties = properties;
+        this.inFlightTimeout = properties.inFlightTimeout();
+        this.roundRobin = new DeficitRoundRobin(properties);
+    }
+
+    // Stored in the caller's transaction, released once it commits
+    public void submit(TenantTask task) {
+        final TenantStats current = tenants.get(task.tenantId());
+        if (current != null && current.queued() >= properties.maxQueuedPerTenant()) {
+            rejectedTasks.increment();
+            throw new TooManyRequestsException("Too many queued tasks, try again later");
+        }
+        jdbcTemplate.update(INSERT_TASK, task.tenantId(), task.getClass().getName(), toJson(task));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    // Wraps the task runner's publisher to hand released tasks to their handlers unwrapped and to free the tenant's
+    // in-flight slot when an attempt ends. A successful attempt frees it along with the handler's work, a failed one
+    // in a transaction of its own. Retries find the row gone and leave the backlog alone.
+    EventPublisher completionTracking(EventPublisher delegate) {
+        return new EventPublisher() {
+            @Override
+            public void publish(Object event) {
+                if (!(event instanceof ReleasedTenantTask released)) {
+                    delegate.publish(event);
+                    return;
+                }
+                try {
+                    delegate.publish(unwrap(released));
+                } catch (RuntimeException e) {
+                    slotTransactionTemplate.executeWithoutResult(
+                            status -> jdbcTemplate.update(COMPLETE_TASK, released.backlogId()));
+                    failedTasks.increment();
+                    wakeUp();
+                    throw e;
+                }
+                jdbcTemplate.update(COMPLETE_TASK, released.backlogId());
+                completedTasks.increment();
+                wakeUp();
+            }
+        };
+    }
+
+    void wakeUp() {
+        if (wakeUpSignal.availablePermits() == 0) {
+            wakeUpSignal.release();
+        }
+    }
+
+    Stats stats() {
+        return new Stats(tenants, releasedTasks.sum(), completedTasks.sum(), failedTasks.sum(), rejectedTasks.sum());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        releaseThread = Thread.ofPlatform().name("fair-task-release").daemon().start(this::releaseLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (releaseThread != null) {
+            releaseThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void releaseLoop() {
+        while (running) {
+            try {
+                final AtomicBoolean budgetExhausted = new AtomicBoolean();
+                final boolean releasing = clusterLock.runIfAvailable(
+                        RELEASE_LOCK_KEY, () -> budgetExhausted.set(releaseRound() >= properties.releaseBatchSize()));
+                if (!releasing) {
+                    refreshTenants(); // keeps the quota check and the depth gauges current on the other nodes
+                }
+                if (!budgetExhausted.get()) {
+                    wakeUpSignal.tryAcquire(properties.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                    wakeUpSignal.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Releasing tenant tasks failed, retrying in {}", properties.pollInterval(), e);
+                try {
+                    Thread.sleep(properties.pollInterval());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int releaseRound() {
+        jdbcTemplate.update(
+                "DELETE FROM tenant_task_backlog WHERE released_at < now() - make_interval(secs => ?)",
+                (double) inFlightTimeout.toSeconds());
+        final Map<UUID, Integer> allocation = roundRobin.allocate(refreshTenants(), properties.releaseBatchSize());
+        int released = 0;
+        for (Map.Entry<UUID, Integer> entry : allocation.entrySet()) {
+            released += release(entry.getKey(), entry.getValue());
+        }
+        return released;
+    }
+
+    // The tasks are inserted into the task queue in the same transaction that marks them released
+    private int release(UUID tenantId, int count) {
+        final Integer released = transactionTemplate.execute(status -> {
+            final List<QueuedTask> tasks = jdbcTemplate.query(SELECT_QUEUED, this::mapTask, tenantId, count);
+            if (tasks.isEmpty()) {
+                return 0;
+            }
+            final List<Long> releasedIds = new ArrayList<>(tasks.size());
+            final List<Long> unreadableIds = new ArrayList<>();
+            for (QueuedTask task : tasks) {
+                final ReleasedTenantTask releasable = toReleased(task);
+                if (releasable == null) {
+                    unreadableIds.add(task.id());
+                } else {
+                    taskPublisher.publish(releasable);
+                    releasedIds.add(task.id());
+                }
+            }
+            updateByIds("UPDATE tenant_task_backlog SET released_at = now() WHERE id = ANY(?)", releasedIds);
+            updateByIds(HOLD_UNREADABLE, unreadableIds);
+            return releasedIds.size();
+        });
+        final int releasedCount = released == null ? 0 : released;
+        releasedTasks.add(releasedCount);
+        return releasedCount;
+    }
+
+    private void updateByIds(String sql, List<Long> ids) {
+        if (!ids.isEmpty()) {
+            final Long[] idArray = ids.toArray(Long[]::new);
+            jdbcTemplate.update(sql, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", idArray)));
+        }
+    }
+
+    private Map<UUID, TenantStats> refreshTenants() {
+        final Map<UUID, TenantStats> current = new HashMap<>();
+        jdbcTemplate.query(SELECT_TENANTS, (RowCallbackHandler) rs -> current.put(
+                rs.getObject("tenant_id", UUID.class), new TenantStats(rs.getLong("queued"), rs.getLong("in_flight"))));
+        tenants = Map.copyOf(current);
+        return tenants;
+    }
+
+    private String toJson(TenantTask task) {
+        try {
+            return objectMapper.writeValueAsString(task);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(
+                    "Task " + task.getClass().getName() + " cannot be serialized for the tenant backlog", e);
+        }
+    }
+
+    // A task whose class cannot be loaded (e.g. it was renamed) is not released, it is skipped until HOLD_UNREADABLE
+    // expires so it neither blocks its tenant nor gets lost
+    private ReleasedTenantTask toReleased(QueuedTask task) {
+        try {
+            Class.forName(task.taskType());
+            final JsonNode payload = objectMapper.readTree(task.payload());
+            return new ReleasedTenantTask(task.id(), task.taskType(), payload);
+        } catch (JsonProcessingException | ClassNotFoundException e) {
+            log.error("Holding unreadable tenant task {} of type {}: {}", task.id(), task.taskType(), e.toString());
+            return null;
+        }
+    }
+
+    // Fails the task run, so the task runner retries it like any other failure
+    private Object unwrap(ReleasedTenantTask released) {
+        try {
+            return objectMapper.treeToValue(released.task(), Class.forName(released.taskType()));
+        } catch (JsonProcessingException | ClassNotFoundException e) {
+            throw new IllegalStateException(
+                    "Tenant task " + released.backlogId() + " of type " + released.taskType() + " cannot be read", e);
+        }
+    }
+
+    private QueuedTask mapTask(ResultSet rs, int rowNum) throws SQLException {
+        return new QueuedTask(rs.getLong("id"), rs.getString("task_type"), rs.getString("payload"));
+    }
+
+    record Stats(
+            Map<UUID, TenantStats> tenants,
+            long releasedTasks,
+            long completedTasks,
+            long failedTasks,
+            long rejectedTasks) {}
+
+    record TenantStats(long queued, long inFlight) {}
+
+    private record QueuedTask(long id, String taskType, String payload) {}
+}
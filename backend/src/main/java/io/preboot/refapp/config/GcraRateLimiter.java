@@ -0,0 +1,42 @@
+package io.preboot.refapp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket in its GCRA form: each key keeps only the theoretical arrival time of its next request, and a request
+// is admitted by one CAS on it. There is no refill thread and no lock; the cache spreads keys over its own stripes.
+// A key that was idle long enough to have a full bucket again can be evicted without changing any decision.
+class GcraRateLimiter {
+    private final Cache<String, AtomicLong> theoreticalArrivals;
+    private final long origin = System.nanoTime(); // keeps the stored times positive
+
+    GcraRateLimiter(long maxKeys, Duration idleExpiry) {
+        this.theoreticalArrivals =
+                Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleExpiry).build();
+    }
+
+    // Returns 0 when the request is admitted, otherwise the nanos until it would be
+    long tryAcquire(String key, long emissionIntervalNanos, long burstToleranceNanos) {
+        return tryAcquire(key, emissionIntervalNanos, burstToleranceNanos, System.nanoTime() - origin);
+    }
+
+    long tryAcquire(String key, long emissionIntervalNanos, long burstToleranceNanos, long now) {
+        final AtomicLong theoreticalArrival = theoreticalArrivals.get(key, k -> new AtomicLong());
+        while (true) {
+            final long current = theoreticalArrival.get();
+            final long allowedAt = current - burstToleranceNanos;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, Math.max(current, now) + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    long size() {
+        return theoreticalArrivals.estimatedSize();
+    }
+}
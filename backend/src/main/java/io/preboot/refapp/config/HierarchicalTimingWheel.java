@@ -0,0 +1,108 @@
+package io.preboot.refapp.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel: level 0 has wheelSize slots of one tick, every next level wheelSize slots of a whole
+// lower level turn. Adding an entry and firing it are O(1); entries of a higher level cascade down one level each time
+// the lower level completes a turn. Entries further out than the top level are parked in its last slot and re-placed
+// when that slot comes up. Deadlines are in milliseconds and rounded up to the next tick, so an entry never fires
+// early and at most one tick late. Not thread safe.
+class HierarchicalTimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] levelTicks;
+    private final List<List<Entry<T>>[]> levels = new ArrayList<>();
+    private long currentTime; // start of the current tick
+    private int size;
+
+    HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levelTicks = new long[levelCount];
+        long levelTick = tickMillis;
+        for (int level = 0; level < levelCount; level++) {
+            levelTicks[level] = levelTick;
+            levels.add(newSlots());
+            levelTick = Math.multiplyExact(levelTick, wheelSize);
+        }
+        this.currentTime = startMillis - startMillis % tickMillis;
+    }
+
+    // Returns false when the deadline is already due, the caller fires the entry itself
+    boolean add(T item, long deadlineMillis) {
+        final long deadline = Math.ceilDiv(deadlineMillis, tickMillis) * tickMillis;
+        if (deadline <= currentTime) {
+            return false;
+        }
+        place(new Entry<>(item, deadline));
+        size++;
+        return true;
+    }
+
+    // Moves the wheel to the tick containing nowMillis and passes every entry that became due to the consumer
+    void advance(long nowMillis, Consumer<T> expired) {
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+            for (int level = levelTicks.length - 1; level >= 1; level--) {
+                if (currentTime % levelTicks[level] == 0) {
+                    for (Entry<T> entry : drain(level)) {
+                        if (entry.deadline() <= currentTime) {
+                            size--;
+                            expired.accept(entry.item());
+                        } else {
+                            place(entry);
+                        }
+                    }
+                }
+            }
+            for (Entry<T> entry : drain(0)) {
+                size--;
+                expired.accept(entry.item());
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        for (int level = 0; level < levelTicks.length; level++) {
+            final long slot = entry.deadline() / levelTicks[level];
+            if (slot - currentTime / levelTicks[level] < wheelSize) {
+                levels.get(level)[(int) (slot % wheelSize)].add(entry);
+                return;
+            }
+        }
+        final int top = levelTicks.length - 1;
+        final long lastSlot = currentTime / levelTicks[top] + wheelSize - 1;
+        levels.get(top)[(int) (lastSlot % wheelSize)].add(entry);
+    }
+
+    private List<Entry<T>> drain(int level) {
+        final List<Entry<T>>[] slots = levels.get(level);
+        final int index = (int) ((currentTime / levelTicks[level]) % wheelSize);
+        final List<Entry<T>> entries = slots[index];
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        slots[index] = new ArrayList<>();
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entry<T>>[] newSlots() {
+        final List<Entry<T>>[] slots = new List[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ArrayList<>();
+        }
+        return slots;
+    }
+
+    private record Entry<T>(T item, long deadline) {}
+}
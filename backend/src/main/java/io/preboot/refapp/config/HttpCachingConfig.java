@@ -0,0 +1,33 @@
+package io.preboot.refapp.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+// Conditional GET for responses that have no entity versions to build a tag from (the OpenAPI document, library
+// controllers). The ETag is a hash of the buffered body, so a 304 still costs the serialization but not the transfer.
+// Own endpoints should return EntityTag.response instead, which skips the serialization too.
+@Configuration
+class HttpCachingConfig {
+    @Bean
+    FilterRegistrationBean<ShallowEtagHeaderFilter> shallowEtagHeaderFilter(
+            @Value("${app.http.shallow-etag-paths:}") List<String> paths) {
+        final FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new GetOnlyShallowEtagHeaderFilter());
+        registration.setUrlPatterns(paths);
+        registration.setEnabled(!paths.isEmpty()); // with no patterns the filter would map to every request
+        return registration;
+    }
+
+    // the body is buffered in memory, never for writes or streamed exports
+    private static class GetOnlyShallowEtagHeaderFilter extends ShallowEtagHeaderFilter {
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            return !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod());
+        }
+    }
+}
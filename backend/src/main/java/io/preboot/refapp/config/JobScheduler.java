@@ -0,0 +1,337 @@
+package io.preboot.refapp.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.preboot.eventbus.tasks.TaskPublisher;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Fires delayed tasks (delayed_task) and recurring jobs (scheduled_job) from an in-memory HierarchicalTimingWheel
+// instead of polling the tables for due rows. Every half load window each node loads the entries due within the next
+// window; from then on the wheel fires them on time. All nodes load the same entries, and a conditional delete (for a
+// delayed task) or a compare-and-set of next_run_at (for a job run) lets exactly one node fire each of them.
+@Slf4j
+public class JobScheduler implements SmartLifecycle {
+    private static final String INSERT_TASK =
+            "INSERT INTO delayed_task (run_at, task_type, payload) VALUES (?, ?, ?::jsonb) RETURNING id";
+    // The row lock keeps other nodes from firing it while it is published; once deleted they find nothing
+    private static final String TAKE_TASK =
+            "SELECT task_type, payload FROM delayed_task WHERE id = ? FOR UPDATE SKIP LOCKED";
+    // A task whose class is missing stays in the table, a later deployment may bring the class back
+    private static final String HOLD_UNREADABLE =
+            "UPDATE delayed_task SET run_at = now() + interval '5 minutes' WHERE id = ?";
+    private static final String REGISTER_JOB =
+            """
+            INSERT INTO scheduled_job (name, interval_ms, next_run_at)
+            VALUES (?, ?, now() + ? * interval '1 millisecond')
+            ON CONFLICT (name) DO UPDATE SET interval_ms = excluded.interval_ms
+            """;
+    // Runs missed while the whole cluster was down are skipped, not caught up
+    private static final String ADVANCE_JOB =
+            """
+            UPDATE scheduled_job
+            SET next_run_at = next_run_at
+                    + greatest(floor(extract(epoch FROM now() - next_run_at) * 1000 / interval_ms) + 1, 1)
+                    * interval_ms * interval '1 millisecond',
+                last_run_at = now()
+            WHERE name = ? AND next_run_at = ?
+            RETURNING next_run_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TaskPublisher taskPublisher;
+    private final ObjectProvider<RecurringJob> recurringJobs;
+    private final long tickMillis;
+    private final Duration loadWindow;
+    private final int loadBatchSize;
+    private final TaskExecutor executor = new VirtualThreadTaskExecutor("job-scheduler");
+    private final Queue<Due> ready = new ConcurrentLinkedQueue<>(); // due entries waiting for a firing permit
+    private final Semaphore firingPermits;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final HierarchicalTimingWheel<Due> wheel; // guarded by lock
+    private final Set<Due> scheduled = new HashSet<>(); // guarded by lock, entries currently in the wheel
+    private final Map<String, RecurringJob> jobs = new ConcurrentHashMap<>();
+
+    private final LongAdder firedTasks = new LongAdder();
+    private final LongAdder firedJobs = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    private volatile Instant loadedUntil = Instant.EPOCH;
+    private volatile boolean running;
+    private Thread schedulerThread;
+
+    JobScheduler(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            TaskPublisher taskPublisher,
+            ObjectProvider<RecurringJob> recurringJobs,
+            Duration tick,
+            int wheelSize,
+            int levels,
+            Duration loadWindow,
+            int loadBatchSize,
+            int maxConcurrentFirings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.taskPublisher = taskPublisher;
+        this.recurringJobs = recurringJobs;
+        this.tickMillis = tick.toMillis();
+        this.loadWindow = loadWindow;
+        this.loadBatchSize = loadBatchSize;
+        this.firingPermits = new Semaphore(maxConcurrentFirings);
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, wheelSize, levels, System.currentTimeMillis());
+    }
+
+    // Publishes the task to the task queue at runAt. Stored in the caller's transaction.
+    public void schedule(Object task, Instant runAt) {
+        final Long id = jdbcTemplate.queryForObject(
+                INSERT_TASK, Long.class, Timestamp.from(runAt), task.getClass().getName(), toJson(task));
+        final Runnable enqueue = () -> {
+            if (runAt.isBefore(loadedUntil)) {
+                enqueue(new DelayedTask(id), runAt); // later ones are picked up by a future load
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue.run();
+                }
+            });
+        } else {
+            enqueue.run();
+        }
+    }
+
+    public void schedule(Object task, Duration delay) {
+        schedule(task, Instant.now().plus(delay));
+    }
+
+    Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(wheel.size(), firedTasks.sum(), firedJobs.sum(), loads.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        recurringJobs.orderedStream().forEach(job -> {
+            jobs.put(job.name(), job);
+            jdbcTemplate.update(REGISTER_JOB, job.name(), job.interval().toMillis(), job.interval().toMillis());
+        });
+        running = true;
+        schedulerThread = Thread.ofPlatform().name("job-scheduler").daemon().start(this::tickLoop);
+        log.info("Job scheduler started with recurring jobs {}", jobs.keySet());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (schedulerThread != null) {
+            schedulerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void tickLoop() {
+        long nextLoadAt = 0;
+        while (running) {
+            try {
+                final long now = System.currentTimeMillis();
+                if (now >= nextLoadAt) {
+                    load(now);
+                    nextLoadAt = now + loadWindow.toMillis() / 2;
+                }
+                final List<Due> due = new ArrayList<>();
+                lock.lock();
+                try {
+                    wheel.advance(now, due::add);
+                    due.forEach(scheduled::remove);
+                } finally {
+                    lock.unlock();
+                }
+                due.forEach(this::fireAsync);
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Loading scheduled tasks and jobs failed, retrying in {}", loadWindow.dividedBy(2), e);
+                nextLoadAt = System.currentTimeMillis() + loadWindow.toMillis() / 2;
+            }
+        }
+    }
+
+    private void load(long now) {
+        final Instant until = Instant.ofEpochMilli(now).plus(loadWindow);
+        final List<Instant> taskRunAts = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT id, run_at FROM delayed_task WHERE run_at < ? ORDER BY run_at LIMIT ?",
+                (rs, rowNum) -> {
+                    final Instant runAt = rs.getTimestamp("run_at").toInstant();
+                    taskRunAts.add(runAt);
+                    enqueue(new DelayedTask(rs.getLong("id")), runAt);
+                    return null;
+                },
+                Timestamp.from(until),
+                loadBatchSize);
+        if (!jobs.isEmpty()) {
+            final String[] names = jobs.keySet().toArray(String[]::new);
+            jdbcTemplate.query(
+                    "SELECT name, next_run_at FROM scheduled_job WHERE next_run_at < ? AND name = ANY(?)",
+                    ps -> {
+                        ps.setTimestamp(1, Timestamp.from(until));
+                        ps.setArray(2, ps.getConnection().createArrayOf("varchar", names));
+                    },
+                    (rs, rowNum) -> {
+                        final Instant runAt = rs.getTimestamp("next_run_at").toInstant();
+                        enqueue(new JobRun(rs.getString("name"), runAt), runAt);
+                        return null;
+                    });
+        }
+        // a full batch means later tasks of the window are still in the table only
+        loadedUntil = taskRunAts.size() < loadBatchSize ? until : taskRunAts.getLast();
+        loads.increment();
+    }
+
+    private void enqueue(Due item, Instant at) {
+        lock.lock();
+        try {
+            if (!scheduled.add(item)) {
+                return;
+            }
+            if (wheel.add(item, at.toEpochMilli())) {
+                return;
+            }
+            scheduled.remove(item);
+        } finally {
+            lock.unlock();
+        }
+        fireAsync(item); // already due
+    }
+
+    // At most max-concurrent-firings threads fire due entries, a burst of due entries waits in ready meanwhile
+    private void fireAsync(Due item) {
+        ready.add(item);
+        startFiring();
+    }
+
+    private void startFiring() {
+        while (!ready.isEmpty() && firingPermits.tryAcquire()) {
+            executor.execute(this::fireReady);
+        }
+    }
+
+    private void fireReady() {
+        try {
+            Due item;
+            while ((item = ready.poll()) != null) {
+                fire(item);
+            }
+        } finally {
+            firingPermits.release();
+        }
+        startFiring(); // an entry added between the last poll and the release would wait for the next one otherwise
+    }
+
+    private void fire(Due item) {
+        try {
+            switch (item) {
+                case DelayedTask task -> fireTask(task);
+                case JobRun run -> fireJob(run);
+            }
+        } catch (RuntimeException e) {
+            log.error("Firing {} failed", item, e);
+        }
+    }
+
+    // Taking the row and publishing the task commit together, the node that locks the row publishes and deletes it
+    private void fireTask(DelayedTask task) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                TAKE_TASK,
+                (rs, rowNum) -> {
+                    final String taskType = rs.getString("task_type");
+                    try {
+                        taskPublisher.publish(objectMapper.readValue(rs.getString("payload"), Class.forName(taskType)));
+                        jdbcTemplate.update("DELETE FROM delayed_task WHERE id = ?", task.id());
+                        firedTasks.increment();
+                    } catch (JsonProcessingException | ClassNotFoundException e) {
+                        log.error(
+                                "Holding unreadable delayed task {} of type {}: {}", task.id(), taskType, e.toString());
+                        jdbcTemplate.update(HOLD_UNREADABLE, task.id());
+                    }
+                    return null;
+                },
+                task.id()));
+    }
+
+    private void fireJob(JobRun run) {
+        final RecurringJob job = jobs.get(run.name());
+        final List<Instant> nextRunAt = jdbcTemplate.query(
+                ADVANCE_JOB,
+                (rs, rowNum) -> rs.getTimestamp(1).toInstant(),
+                run.name(),
+                Timestamp.from(run.runAt()));
+        if (nextRunAt.isEmpty()) {
+            return; // this run was taken by another node
+        }
+        enqueue(new JobRun(run.name(), nextRunAt.getFirst()), nextRunAt.getFirst());
+        firedJobs.increment();
+        final long startedAt = System.nanoTime();
+        job.run();
+        log.debug("Recurring job {} took {} ms", run.name(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private String toJson(Object task) {
+        try {
+            return objectMapper.writeValueAsString(task);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(
+                    "Task " + task.getClass().getName() + " cannot be serialized for delayed execution", e);
+        }
+    }
+
+    record Stats(int scheduledEntries, long firedTasks, long firedJobs, long loads) {}
+
+    private sealed interface Due {}
+
+    private record DelayedTask(long id) implements Due {}
+
+    private record JobRun(String name, Instant runAt) implements Due {}
+}
@@ -1,8 +1,11 @@
 package io.preboot.refapp.config;
 
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import io.preboot.core.json.JsonMapper;
 import io.preboot.core.json.JsonMapperFactory;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -10,6 +13,18 @@ import org.springframework.context.annotation.Primary;
 @Configuration
 class JsonMapperConfig {
     private final JsonMapper jsonMapper = JsonMapperFactory.createJsonMapper();
+    private final boolean blackbird;
+
+    JsonMapperConfig(@Value("${app.json.blackbird:true}") boolean blackbird) {
+        this.blackbird = blackbird;
+        final ObjectMapper objectMapper = jsonMapper.getObjectMapper();
+        // Jackson recycles its buffers per thread by default, which virtual threads never reuse
+        objectMapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedConcurrentDequePool());
+        if (blackbird) {
+            // generated accessors instead of reflection for every property read and write
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+    }
 
     @Bean
     JsonMapper jsonMapper() {
@@ -21,4 +36,9 @@ class JsonMapperConfig {
     ObjectMapper objectMapper() {
         return jsonMapper.getObjectMapper();
     }
+
+    @Bean
+    PayloadCodec payloadCodec(@Value("${app.event-bus.outbox.encoding:json}") PayloadCodec.Encoding encoding) {
+        return new PayloadCodec(jsonMapper.getObjectMapper(), encoding, blackbird);
+    }
 }
@@ -0,0 +1,173 @@
+package io.preboot.refapp.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import liquibase.integration.spring.SpringResourceAccessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Skips the Liquibase update on boot when neither the changelogs on the classpath (the application's and the
+// preboot-auth ones) nor the changelog parameters changed since the last successful update that left no changeset
+// unrun. Otherwise every start parses all changelogs, takes the Liquibase lock and compares each changeset with
+// DATABASECHANGELOG.
+@Slf4j
+class LiquibaseFingerprint implements BeanPostProcessor {
+    static final String FINGERPRINT_TABLE = "schema_fingerprint";
+    private static final String CHANGELOG_PATTERN = "classpath*:db/changelog/**/*.xml";
+
+    private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+    private final Map<String, String> pendingFingerprints = new ConcurrentHashMap<>(); // by bean name
+    // SpringLiquibase exposes neither whether it runs nor its parameters, it is configured from these properties
+    private final ObjectProvider<LiquibaseProperties> liquibaseProperties;
+
+    LiquibaseFingerprint(ObjectProvider<LiquibaseProperties> liquibaseProperties) {
+        this.liquibaseProperties = liquibaseProperties;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (!(bean instanceof SpringLiquibase liquibase)) {
+            return bean;
+        }
+        final LiquibaseProperties properties = liquibaseProperties.getIfAvailable();
+        if (properties == null || !properties.isEnabled()) {
+            return bean;
+        }
+        final String fingerprint = fingerprint(liquibase, properties.getParameters());
+        if (fingerprint.equals(storedFingerprint(liquibase))) {
+            log.info("Database changelogs unchanged since the last update, skipping Liquibase");
+            liquibase.setShouldRun(false);
+        } else {
+            pendingFingerprints.put(beanName, fingerprint);
+        }
+        return bean;
+    }
+
+    // Runs after SpringLiquibase.afterPropertiesSet, i.e. only once the update succeeded
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        final String fingerprint = pendingFingerprints.remove(beanName);
+        if (fingerprint != null && bean instanceof SpringLiquibase liquibase) {
+            if (hasUnrunChangeSets(liquibase, liquibaseProperties.getObject().getParameters())) {
+                log.warn("Changesets were skipped by their preconditions, Liquibase will run on the next start");
+                return bean;
+            }
+            try {
+                new JdbcTemplate(liquibase.getDataSource())
+                        .update(
+                                """
+                                INSERT INTO %s (id, fingerprint, updated_at) VALUES (1, ?, now())
+                                ON CONFLICT (id) DO UPDATE SET fingerprint = excluded.fingerprint,
+                                    updated_at = excluded.updated_at
+                                """
+                                        .formatted(FINGERPRINT_TABLE),
+                                fingerprint);
+            } catch (DataAccessException e) {
+                log.warn("Could not store the changelog fingerprint, Liquibase will run on the next start", e);
+            }
+        }
+        return bean;
+    }
+
+    // A changeset skipped by its precondition (onFail="CONTINUE") is only retried by a later update, so the
+    // fingerprint, which would skip that update, is stored once no changeset is left to run
+    private static boolean hasUnrunChangeSets(SpringLiquibase springLiquibase, Map<String, String> parameters) {
+        try (Connection connection = springLiquibase.getDataSource().getConnection()) {
+            final Database database =
+                    DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            if (springLiquibase.getDefaultSchema() != null) {
+                database.setDefaultSchemaName(springLiquibase.getDefaultSchema());
+            }
+            if (springLiquibase.getLiquibaseSchema() != null) {
+                database.setLiquibaseSchemaName(springLiquibase.getLiquibaseSchema());
+            }
+            if (springLiquibase.getDatabaseChangeLogTable() != null) {
+                database.setDatabaseChangeLogTableName(springLiquibase.getDatabaseChangeLogTable());
+            }
+            final Liquibase liquibase = new Liquibase(
+                    springLiquibase.getChangeLog(),
+                    new SpringResourceAccessor(springLiquibase.getResourceLoader()),
+                    database);
+            Objects.requireNonNullElse(parameters, Map.<String, String>of()).forEach(liquibase::setChangeLogParameter);
+            return !liquibase
+                    .listUnrunChangeSets(
+                            new Contexts(springLiquibase.getContexts()),
+                            new LabelExpression(springLiquibase.getLabelFilter()))
+                    .isEmpty();
+        } catch (SQLException | LiquibaseException e) {
+            log.warn("Could not check for skipped changesets", e);
+            return true;
+        }
+    }
+
+    private String storedFingerprint(SpringLiquibase liquibase) {
+        try {
+            final List<String> stored = new JdbcTemplate(liquibase.getDataSource())
+                    .queryForList("SELECT fingerprint FROM " + FINGERPRINT_TABLE + " WHERE id = 1", String.class);
+            return stored.isEmpty() ? null : stored.getFirst();
+        } catch (DataAccessException e) {
+            return null; // first start, the table is created by the changelog
+        }
+    }
+
+    private String fingerprint(SpringLiquibase liquibase, Map<String, String> parameters) {
+        try {
+            // content hashes sorted by file name, so the order and location of the jars on the classpath don't matter
+            final Map<String, List<String>> changelogs = new TreeMap<>();
+            for (Resource resource : resourceResolver.getResources(CHANGELOG_PATTERN)) {
+                try (InputStream content = resource.getInputStream()) {
+                    changelogs
+                            .computeIfAbsent(Objects.toString(resource.getFilename()), name -> new ArrayList<>())
+                            .add(sha256(content.readAllBytes()));
+                }
+            }
+            changelogs.values().forEach(hashes -> hashes.sort(null));
+            final String state = String.join(
+                    "\n",
+                    changelogs.toString(),
+                    Objects.toString(liquibase.getChangeLog()),
+                    Objects.toString(liquibase.getContexts()),
+                    Objects.toString(liquibase.getLabelFilter()),
+                    new TreeMap<>(Objects.requireNonNullElse(parameters, Map.of())).toString());
+            return sha256(state.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the database changelogs", e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
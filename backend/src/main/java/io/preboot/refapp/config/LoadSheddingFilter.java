@@ -0,0 +1,103 @@
+package io.preboot.refapp.config;
+
+import io.preboot.refapp.exception.ServiceUnavailableException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+// Admission control for the whole node: requests beyond an adaptive concurrency limit get an immediate 503 instead of
+// queuing for a Tomcat thread or a database connection until they time out. The limit follows request latency the
+// same way task lanes do, so it settles at what the connection pool and the database actually sustain. Runs before the
+// security filter chain, so shed requests don't even cost a token check.
+//
+// Long-running routes would drag the latency baseline around and are exempt: the excluded-paths (health check,
+// WebSocket/SockJS transports) are not admitted through the limit at all, and requests that went async (streaming
+// exports, SSE) give back their slot when the servlet thread is released but feed no latency sample.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2) // after the HTTP observation filter, so shed requests show up in the metrics
+class LoadSheddingFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+    private final List<PathPattern> excludedPaths;
+    private final AdaptiveConcurrencyLimit limit;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder shedRequests = new LongAdder();
+
+    LoadSheddingFilter(
+            @Value("${app.load-shedding.enabled:true}") boolean enabled,
+            @Value("${app.load-shedding.initial-limit:50}") int initialLimit,
+            @Value("${app.load-shedding.min-limit:10}") int minLimit,
+            @Value("${app.load-shedding.max-limit:200}") int maxLimit,
+            @Value("${app.load-shedding.sample-window:20}") int sampleWindow,
+            @Value("${app.load-shedding.excluded-paths:/api/healthcheck,/ws/**}") List<String> excludedPaths,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.enabled = enabled;
+        this.excludedPaths = excludedPaths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+        this.limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, sampleWindow);
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        final PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        return excludedPaths.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!tryAcquire()) {
+            shedRequests.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            handlerExceptionResolver.resolveException(
+                    request, response, null, new ServiceUnavailableException("Server is overloaded, retry later"));
+            return;
+        }
+        final long startedAt = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            final int inFlightBefore = inFlight.getAndDecrement();
+            if (!request.isAsyncStarted()) {
+                limit.onSample(System.nanoTime() - startedAt, inFlightBefore);
+            }
+        }
+    }
+
+    Stats stats() {
+        return new Stats(inFlight.get(), limit.getLimit(), shedRequests.sum());
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= limit.getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    record Stats(int inFlight, int limit, long shedRequests) {}
+}
@@ -0,0 +1,23 @@
+package io.preboot.refapp.config;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Provider limits are keyed by recipient domain, e.g. gmail.com: 20
+@ConfigurationProperties("app.mail.batching")
+record MailBatchingProperties(
+        @DefaultValue("50") int batchSize,
+        @DefaultValue("4") int connections,
+        @DefaultValue("100") int maxMessagesPerConnection,
+        @DefaultValue("0") int maxMessagesPerSecond,
+        Map<String, Integer> providerMessagesPerSecond,
+        @DefaultValue("30s") Duration idleTimeout,
+        @DefaultValue("2m") Duration sendTimeout) {
+
+    MailBatchingProperties {
+        providerMessagesPerSecond =
+                providerMessagesPerSecond == null ? Map.of() : Map.copyOf(providerMessagesPerSecond);
+    }
+}
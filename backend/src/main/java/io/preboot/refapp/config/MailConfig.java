@@ -0,0 +1,38 @@
+package io.preboot.refapp.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({MailProperties.class, MailBatchingProperties.class})
+class MailConfig {
+
+    // Replaces the auto-configured JavaMailSender, configured from the same spring.mail properties
+    @Bean
+    @ConditionalOnProperty(name = "app.mail.batching.enabled", havingValue = "true", matchIfMissing = true)
+    BatchingJavaMailSender mailSender(MailProperties mailProperties, MailBatchingProperties batching) {
+        final BatchingJavaMailSender mailSender = new BatchingJavaMailSender(
+                batching.batchSize(),
+                batching.connections(),
+                batching.maxMessagesPerConnection(),
+                batching.maxMessagesPerSecond(),
+                batching.providerMessagesPerSecond(),
+                batching.idleTimeout(),
+                batching.sendTimeout());
+        mailSender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            mailSender.setPort(mailProperties.getPort());
+        }
+        mailSender.setUsername(mailProperties.getUsername());
+        mailSender.setPassword(mailProperties.getPassword());
+        mailSender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            mailSender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        mailSender.getJavaMailProperties().putAll(mailProperties.getProperties());
+        return mailSender;
+    }
+}
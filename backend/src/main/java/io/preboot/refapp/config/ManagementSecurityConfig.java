@@ -0,0 +1,58 @@
+package io.preboot.refapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+
+// Actuator endpoints get their own filter chain ahead of the application's JWT chain: health and info stay open for
+// probes, everything else (prometheus) needs HTTP basic with the scrape credentials. Without a password configured
+// those endpoints are closed.
+@Configuration
+class ManagementSecurityConfig {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    SecurityFilterChain managementSecurityFilterChain(
+            HttpSecurity http,
+            @Value("${app.management.username:prometheus}") String username,
+            @Value("${app.management.password:}") String password)
+            throws Exception {
+        http.securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(requests -> {
+                    requests.requestMatchers(EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class))
+                            .permitAll();
+                    if (password.isBlank()) {
+                        requests.anyRequest().denyAll();
+                    } else {
+                        requests.anyRequest().authenticated();
+                    }
+                });
+        if (!password.isBlank()) {
+            final PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+            final DaoAuthenticationProvider provider = new DaoAuthenticationProvider(
+                    new InMemoryUserDetailsManager(User.withUsername(username)
+                            .password(passwordEncoder.encode(password))
+                            .build()));
+            provider.setPasswordEncoder(passwordEncoder);
+            http.authenticationManager(new ProviderManager(provider)).httpBasic(Customizer.withDefaults());
+        }
+        return http.build();
+    }
+}
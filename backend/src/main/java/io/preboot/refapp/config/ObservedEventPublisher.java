@@ -0,0 +1,26 @@
+package io.preboot.refapp.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.preboot.eventbus.EventPublisher;
+
+// Runs every publish in an observation tagged with the event type: a latency timer (with the error tag on failure)
+// and, when sampled, a tracing span that handlers and nested publishes of the same thread become children of.
+class ObservedEventPublisher implements EventPublisher {
+    private final EventPublisher delegate;
+    private final ObservationRegistry observationRegistry;
+    private final String name;
+
+    ObservedEventPublisher(EventPublisher delegate, ObservationRegistry observationRegistry, String name) {
+        this.delegate = delegate;
+        this.observationRegistry = observationRegistry;
+        this.name = name;
+    }
+
+    @Override
+    public void publish(Object event) {
+        Observation.createNotStarted(name, observationRegistry)
+                .lowCardinalityKeyValue("type", event.getClass().getSimpleName())
+                .observe(() -> delegate.publish(event));
+    }
+}
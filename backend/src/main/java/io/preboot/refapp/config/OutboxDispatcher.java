@@ -0,0 +1,322 @@
+package io.preboot.refapp.config;
+
+import io.preboot.eventbus.EventPublisher;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Drains event_outbox in batches and hands the events to the synchronous publisher. Due events are claimed in a short
+// transaction (transaction scoped advisory lock, so only one node claims at a time) by moving their next attempt past
+// the claim timeout, handlers run outside of any transaction and the outcome is written back in another short one. An
+// event is never delivered while an older live event with the same aggregate key is claimed or waiting for a retry,
+// which keeps per key ordering; events without a key are not ordered. Delivery is at least once: claims of a node that
+// dies expire after the claim timeout. After max-attempts failed deliveries an event is dead lettered (dead_at set) and
+// no longer blocks its aggregate key.
+@Slf4j
+class OutboxDispatcher implements SmartLifecycle {
+    private static final long DRAIN_LOCK_KEY = 0x6f7574626f78L; // "outbox"
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final String CLAIM_DUE_EVENTS =
+            """
+            UPDATE event_outbox o
+            SET next_attempt_at = now() + make_interval(secs => ?)
+            FROM (SELECT due.id FROM event_outbox due
+                  WHERE due.dead_at IS NULL
+                    AND due.next_attempt_at <= now()
+                    AND NOT EXISTS (SELECT 1 FROM event_outbox earlier
+                                    WHERE earlier.aggregate_key = due.aggregate_key
+                                      AND earlier.id < due.id
+                                      AND earlier.dead_at IS NULL
+                                      AND earlier.next_attempt_at > now())
+                  ORDER BY due.id
+                  LIMIT ?) claimed
+            WHERE o.id = claimed.id
+            RETURNING o.id, o.aggregate_key, o.event_type, o.payload, o.payload_cbor, o.attempts
+            """;
+    private static final String MARK_FAILED =
+            """
+            UPDATE event_outbox
+            SET attempts = attempts + ?, next_attempt_at = now() + make_interval(secs => ?), last_error = ?
+            WHERE id = ?
+            """;
+    private static final String MARK_DEAD =
+            """
+            UPDATE event_outbox
+            SET attempts = attempts + 1, dead_at = now(), last_error = ?
+            WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PayloadCodec payloadCodec;
+    private final EventPublisher eventPublisher;
+    private final int batchSize;
+    private final Semaphore inFlight;
+    private final Duration pollInterval;
+    private final Duration maxRetryDelay;
+    private final int maxAttempts;
+    private final Duration claimTimeout;
+    private final TaskExecutor taskExecutor = new VirtualThreadTaskExecutor("outbox-dispatcher");
+    private final Semaphore wakeUpSignal = new Semaphore(0);
+
+    private final LongAdder deliveredEvents = new LongAdder();
+    private final LongAdder failedDeliveries = new LongAdder();
+    private final LongAdder deadLetteredEvents = new LongAdder();
+
+    private volatile boolean running;
+    private Thread dispatcherThread;
+
+    OutboxDispatcher(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PayloadCodec payloadCodec,
+            EventPublisher eventPublisher,
+            int batchSize,
+            int maxInFlight,
+            Duration pollInterval,
+            Duration maxRetryDelay,
+            int maxAttempts,
+            Duration claimTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.payloadCodec = payloadCodec;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.pollInterval = pollInterval;
+        this.maxRetryDelay = maxRetryDelay;
+        this.maxAttempts = maxAttempts;
+        this.claimTimeout = claimTimeout;
+    }
+
+    void wakeUp() {
+        if (wakeUpSignal.availablePermits() == 0) {
+            wakeUpSignal.release();
+        }
+    }
+
+    Stats stats() {
+        return new Stats(deliveredEvents.sum(), failedDeliveries.sum(), deadLetteredEvents.sum());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        dispatcherThread = Thread.ofPlatform().name("outbox-dispatcher").daemon().start(this::dispatch);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (dispatcherThread != null) {
+            dispatcherThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                if (drainBatch() < batchSize) {
+                    wakeUpSignal.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    wakeUpSignal.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Outbox dispatch failed, retrying in {}", pollInterval, e);
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int drainBatch() {
+        final List<OutboxRecord> records = claim();
+        if (records.isEmpty()) {
+            return 0;
+        }
+        final Map<Object, List<OutboxRecord>> byAggregateKey = new LinkedHashMap<>();
+        for (OutboxRecord record : records) {
+            // an event without a key is an aggregate of its own
+            final Object key = record.aggregateKey() != null ? record.aggregateKey() : record.id();
+            byAggregateKey.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+        }
+        final Deliveries deliveries = deliver(byAggregateKey.values());
+        transactionTemplate.executeWithoutResult(status -> acknowledge(records, deliveries));
+        return records.size();
+    }
+
+    private List<OutboxRecord> claim() {
+        final List<OutboxRecord> records = transactionTemplate.execute(status -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, DRAIN_LOCK_KEY))) {
+                return List.of(); // another node is claiming
+            }
+            return jdbcTemplate.query(CLAIM_DUE_EVENTS, this::mapRecord, claimTimeout.toMillis() / 1000.0, batchSize);
+        });
+        if (records == null || records.isEmpty()) {
+            return List.of();
+        }
+        final List<OutboxRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(OutboxRecord::id)); // RETURNING has no order
+        return sorted;
+    }
+
+    // Aggregates are delivered concurrently (bounded by max-in-flight), events of one aggregate sequentially
+    private Deliveries deliver(Collection<List<OutboxRecord>> aggregates) {
+        final Deliveries deliveries = new Deliveries(new ConcurrentLinkedQueue<>(), new ConcurrentLinkedQueue<>());
+        final CountDownLatch done = new CountDownLatch(aggregates.size());
+        try {
+            for (List<OutboxRecord> aggregate : aggregates) {
+                inFlight.acquire();
+                taskExecutor.execute(() -> {
+                    try {
+                        deliverInOrder(aggregate, deliveries);
+                    } finally {
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while delivering outbox events", e);
+        }
+        return deliveries;
+    }
+
+    private void deliverInOrder(List<OutboxRecord> aggregate, Deliveries deliveries) {
+        for (OutboxRecord record : aggregate) {
+            try {
+                final Object event =
+                        payloadCodec.read(record.payload(), record.payloadCbor(), Class.forName(record.eventType()));
+                eventPublisher.publish(event);
+                deliveries.delivered().add(record.id());
+            } catch (Exception e) {
+                deliveries.failed().add(new Failure(record, e));
+                return; // later events of this aggregate wait until this one is delivered
+            }
+        }
+    }
+
+    private void acknowledge(List<OutboxRecord> claimed, Deliveries deliveries) {
+        final Set<Long> unattempted = claimed.stream().map(OutboxRecord::id).collect(Collectors.toSet());
+        if (!deliveries.delivered().isEmpty()) {
+            final Long[] ids = deliveries.delivered().toArray(Long[]::new);
+            jdbcTemplate.update(
+                    "DELETE FROM event_outbox WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+            deliveredEvents.add(ids.length);
+            unattempted.removeAll(deliveries.delivered());
+        }
+        if (!deliveries.failed().isEmpty()) {
+            final List<Object[]> retries = new ArrayList<>();
+            final List<Object[]> deadLetters = new ArrayList<>();
+            for (Failure failure : deliveries.failed()) {
+                final OutboxRecord record = failure.record();
+                unattempted.remove(record.id());
+                // a missing event class is a deployment issue (e.g. a rolling update), not a failed delivery
+                final boolean counted = !(failure.error() instanceof ClassNotFoundException);
+                if (counted && record.attempts() + 1 >= maxAttempts) {
+                    log.error(
+                            "Delivery of outbox event {} ({}) failed {} times, moving it to the dead letters",
+                            record.id(),
+                            record.eventType(),
+                            record.attempts() + 1,
+                            failure.error());
+                    deadLetters.add(new Object[] {errorMessage(failure.error()), record.id()});
+                    continue;
+                }
+                final Duration retryDelay = retryDelay(record.attempts());
+                log.warn(
+                        "Delivery of outbox event {} ({}) failed, attempt {}, retrying in {}",
+                        record.id(),
+                        record.eventType(),
+                        record.attempts() + 1,
+                        retryDelay,
+                        failure.error());
+                retries.add(new Object[] {
+                    counted ? 1 : 0, retryDelay.toMillis() / 1000.0, errorMessage(failure.error()), record.id()
+                });
+            }
+            if (!retries.isEmpty()) {
+                jdbcTemplate.batchUpdate(MARK_FAILED, retries);
+            }
+            if (!deadLetters.isEmpty()) {
+                jdbcTemplate.batchUpdate(MARK_DEAD, deadLetters);
+                deadLetteredEvents.add(deadLetters.size());
+            }
+            failedDeliveries.add(deliveries.failed().size());
+        }
+        if (!unattempted.isEmpty()) {
+            // events behind a failed one of their aggregate; due again, but held back until it is delivered
+            final Long[] ids = unattempted.toArray(Long[]::new);
+            jdbcTemplate.update(
+                    "UPDATE event_outbox SET next_attempt_at = now() WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+        }
+    }
+
+    private Duration retryDelay(int attempts) {
+        final long seconds = 1L << Math.min(attempts, 20);
+        return seconds > maxRetryDelay.toSeconds() ? maxRetryDelay : Duration.ofSeconds(seconds);
+    }
+
+    private String errorMessage(Exception error) {
+        final String message = error.getClass().getName() + ": " + error.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private OutboxRecord mapRecord(ResultSet rs, int rowNum) throws SQLException {
+        return new OutboxRecord(
+                rs.getLong("id"),
+                rs.getString("aggregate_key"),
+                rs.getString("event_type"),
+                rs.getString("payload"),
+                rs.getBytes("payload_cbor"),
+                rs.getInt("attempts"));
+    }
+
+    record Stats(long deliveredEvents, long failedDeliveries, long deadLetteredEvents) {}
+
+    private record OutboxRecord(
+            long id, String aggregateKey, String eventType, String payload, byte[] payloadCbor, int attempts) {}
+
+    private record Failure(OutboxRecord record, Exception error) {}
+
+    private record Deliveries(Queue<Long> delivered, Queue<Failure> failed) {}
+}
@@ -0,0 +1,50 @@
+package io.preboot.refapp.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.preboot.eventbus.EventPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Asynchronous publisher backed by the event_outbox table. The event is stored in the caller's transaction, so it is
+// delivered (by OutboxDispatcher) if and only if the caller commits, and survives a crash before delivery.
+@RequiredArgsConstructor
+class OutboxEventPublisher implements EventPublisher {
+    private static final String INSERT_EVENT =
+            "INSERT INTO event_outbox (aggregate_key, event_type, payload) VALUES (?, ?, ?::jsonb)";
+    private static final String INSERT_CBOR_EVENT =
+            "INSERT INTO event_outbox (aggregate_key, event_type, payload_cbor) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PayloadCodec payloadCodec;
+    private final OutboxDispatcher outboxDispatcher;
+
+    @Override
+    public void publish(Object event) {
+        final String aggregateKey =
+                event instanceof AggregateEvent aggregateEvent ? aggregateEvent.aggregateKey() : null;
+        try {
+            if (payloadCodec.encoding() == PayloadCodec.Encoding.CBOR) {
+                jdbcTemplate.update(
+                        INSERT_CBOR_EVENT, aggregateKey, event.getClass().getName(), payloadCodec.toCbor(event));
+            } else {
+                jdbcTemplate.update(INSERT_EVENT, aggregateKey, event.getClass().getName(), payloadCodec.toJson(event));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(
+                    "Event " + event.getClass().getName() + " cannot be serialized for the outbox", e);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxDispatcher.wakeUp();
+                }
+            });
+        } else {
+            outboxDispatcher.wakeUp();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.preboot.refapp.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.io.IOException;
+
+// Encodes event payloads the application stores itself. JSON stays readable in the database (jsonb), CBOR goes to a
+// bytea column and is smaller and cheaper to write and parse. CBOR is only ever read back by this codec, so its mapper
+// just needs the same modules, not the HTTP JSON conventions. Payloads are always readable in both encodings, so
+// switching the encoding needs no migration of pending rows.
+class PayloadCodec {
+    enum Encoding {
+        JSON,
+        CBOR
+    }
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final Encoding encoding;
+
+    PayloadCodec(ObjectMapper jsonMapper, Encoding encoding, boolean blackbird) {
+        this.jsonMapper = jsonMapper;
+        final CBORMapper.Builder cborBuilder =
+                CBORMapper.builder().findAndAddModules().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        if (blackbird) {
+            cborBuilder.addModule(new BlackbirdModule());
+        }
+        this.cborMapper = cborBuilder.build();
+        cborMapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedConcurrentDequePool());
+        this.encoding = encoding;
+    }
+
+    Encoding encoding() {
+        return encoding;
+    }
+
+    String toJson(Object payload) throws JsonProcessingException {
+        return jsonMapper.writeValueAsString(payload);
+    }
+
+    byte[] toCbor(Object payload) throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(payload);
+    }
+
+    // Exactly one of json and cbor is set
+    Object read(String json, byte[] cbor, Class<?> type) throws IOException {
+        return cbor != null ? cborMapper.readValue(cbor, type) : jsonMapper.readValue(json, type);
+    }
+}
@@ -0,0 +1,130 @@
+package io.preboot.refapp.config;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+// Single dedicated connection that LISTENs on Postgres channels and fans notifications out to subscribers.
+// The connection is opened outside of the Hikari pool so it never takes a slot away from request handling.
+@Component
+@Slf4j
+class PostgresNotificationListener implements SmartLifecycle {
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final DataSourceProperties dataSourceProperties;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    PostgresNotificationListener(
+            DataSourceProperties dataSourceProperties,
+            @Value("${app.notifications.poll-timeout:500ms}") Duration pollTimeout,
+            @Value("${app.notifications.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    // Subscribers are invoked on the listener thread and must not block.
+    // Every subscriber is also invoked with a null payload after (re)connecting, as notifications may have been missed.
+    void subscribe(String channel, Consumer<String> subscriber) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel name: " + channel);
+        }
+        subscribers.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    @Override
+    public void start() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform().name("pg-notification-listener").daemon().start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : subscribers.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                log.info("Listening for Postgres notifications on {}", subscribers.keySet());
+                subscribers.forEach((channel, channelSubscribers) -> deliver(channel, channelSubscribers, null));
+
+                final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    final PGNotification[] notifications =
+                            pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        final String channel = notification.getName();
+                        deliver(channel, subscribers.get(channel), notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Postgres notification listener disconnected, reconnecting in {}", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(String channel, List<Consumer<String>> channelSubscribers, String payload) {
+        if (channelSubscribers == null) {
+            return;
+        }
+        for (Consumer<String> subscriber : channelSubscribers) {
+            try {
+                subscriber.accept(payload);
+            } catch (RuntimeException e) {
+                log.error("Notification subscriber for channel {} failed", channel, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.preboot.refapp.config;
+
+// Event pushed to WebSocket clients through WebSocketPushService when published on the event bus. Updates sharing
+// destination, user and key within one push window are coalesced, only the latest payload is sent.
+public interface PushEvent {
+    String destination();
+
+    String key();
+
+    Object payload();
+
+    // Recipient of a /user destination, null for a broadcast
+    default String user() {
+        return null;
+    }
+}
@@ -0,0 +1,120 @@
+package io.preboot.refapp.config;
+
+import io.preboot.auth.api.dto.UserAccountInfo;
+import io.preboot.refapp.exception.TooManyRequestsException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+// Per route rate limits keyed by client IP, user or tenant (app.rate-limit). Runs after the security filter chain, so
+// the user and tenant of the request are known, but before any controller touches the database. Rejected requests
+// get the regular 429 error response with a Retry-After header.
+@Slf4j
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+class RateLimitFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+    private final List<CompiledRule> rules;
+    private final GcraRateLimiter rateLimiter;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final LongAdder rejectedRequests = new LongAdder();
+
+    RateLimitFilter(
+            RateLimitProperties properties,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.enabled = properties.enabled();
+        this.rules = properties.rules().entrySet().stream()
+                .map(entry -> new CompiledRule(entry.getKey(), entry.getValue()))
+                .toList();
+        // a key idle for its whole burst window has a full bucket again, forgetting it changes nothing
+        final Duration idleExpiry = properties.rules().values().stream()
+                .map(rule -> Duration.ofNanos(rule.emissionIntervalNanos() + rule.burstToleranceNanos()))
+                .reduce(Duration.ofSeconds(1), (a, b) -> a.compareTo(b) >= 0 ? a : b);
+        this.rateLimiter = new GcraRateLimiter(properties.maxKeys(), idleExpiry);
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        if (enabled && !rules.isEmpty()) {
+            log.info("Rate limits configured: {}", properties.rules());
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (CompiledRule rule : rules) {
+            if (!rule.matches(request.getMethod(), path)) {
+                continue;
+            }
+            final long waitNanos = rateLimiter.tryAcquire(
+                    rule.name() + ':' + key(rule.rule().key(), request),
+                    rule.rule().emissionIntervalNanos(),
+                    rule.rule().burstToleranceNanos());
+            if (waitNanos > 0) {
+                rejectedRequests.increment();
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(waitNanos)));
+                handlerExceptionResolver.resolveException(
+                        request, response, null, new TooManyRequestsException("Rate limit exceeded, retry later"));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    Stats stats() {
+        return new Stats(rateLimiter.size(), rejectedRequests.sum());
+    }
+
+    private static String key(RateLimitProperties.Key key, HttpServletRequest request) {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (key != RateLimitProperties.Key.IP
+                && authentication != null
+                && authentication.getPrincipal() instanceof UserAccountInfo userAccountInfo) {
+            final Object id =
+                    key == RateLimitProperties.Key.USER ? userAccountInfo.uuid() : userAccountInfo.tenantId();
+            if (id != null) {
+                return id.toString();
+            }
+        }
+        return request.getRemoteAddr(); // the client address, see server.forward-headers-strategy
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private record CompiledRule(String name, RateLimitProperties.Rule rule, List<PathPattern> patterns) {
+        CompiledRule(String name, RateLimitProperties.Rule rule) {
+            this(name, rule, rule.paths().stream().map(PathPatternParser.defaultInstance::parse).toList());
+        }
+
+        boolean matches(String method, PathContainer path) {
+            return (rule.methods().isEmpty() || rule.methods().contains(method))
+                    && patterns.stream().anyMatch(pattern -> pattern.matches(path));
+        }
+    }
+
+    record Stats(long trackedKeys, long rejectedRequests) {}
+}
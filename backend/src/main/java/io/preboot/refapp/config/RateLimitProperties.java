@@ -0,0 +1,40 @@
+package io.preboot.refapp.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Rules are independent buckets, a request must pass every rule matching its path and method
+@ConfigurationProperties("app.rate-limit")
+record RateLimitProperties(Boolean enabled, Long maxKeys, Map<String, Rule> rules) {
+    RateLimitProperties {
+        enabled = enabled == null || enabled;
+        maxKeys = maxKeys == null ? 100_000 : maxKeys;
+        rules = rules == null ? Map.of() : Map.copyOf(rules);
+    }
+
+    enum Key {
+        IP,
+        USER, // the IP for anonymous requests
+        TENANT // the IP for anonymous requests
+    }
+
+    record Rule(List<String> paths, List<String> methods, Key key, int limit, Duration period, Integer burst) {
+        Rule {
+            if (paths == null || paths.isEmpty() || key == null || limit < 1 || period == null) {
+                throw new IllegalArgumentException("Rate limit rules need paths, a key, a positive limit and a period");
+            }
+            methods = methods == null ? List.of() : List.copyOf(methods);
+            burst = burst == null ? limit : Math.max(1, burst);
+        }
+
+        long emissionIntervalNanos() {
+            return period.toNanos() / limit;
+        }
+
+        long burstToleranceNanos() {
+            return emissionIntervalNanos() * (burst - 1);
+        }
+    }
+}
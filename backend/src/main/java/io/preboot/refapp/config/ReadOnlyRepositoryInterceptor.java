@@ -0,0 +1,85 @@
+package io.preboot.refapp.config;
+
+import java.util.List;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+// Runs repository read methods (find*, search*, ...) called outside a transaction in a read-only scope, so the
+// ReplicaRoutingDataSource can send them to the replica; it does for signed in users only. Calls inside a transaction
+// keep that transaction's routing. Applied to repositories declared in an allow-listed package only.
+class ReadOnlyRepositoryInterceptor implements MethodInterceptor {
+    private static final List<String> READ_METHOD_PREFIXES = List.of("find", "search", "count", "exists", "get");
+    private static final TransactionDefinition READ_ONLY_SCOPE = readOnlyScope();
+
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    ReadOnlyRepositoryInterceptor(ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                || !isReadMethod(invocation.getMethod().getName())) {
+            return invocation.proceed();
+        }
+        final PlatformTransactionManager manager = transactionManager.getObject();
+        final TransactionStatus status = manager.getTransaction(READ_ONLY_SCOPE);
+        final Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            manager.rollback(status);
+            throw e;
+        }
+        manager.commit(status);
+        return result;
+    }
+
+    static boolean appliesTo(Object bean, List<String> packages) {
+        if (!(bean instanceof Repository<?, ?>)) {
+            return false;
+        }
+        for (Class<?> type : ClassUtils.getAllInterfacesAsSet(bean)) {
+            if (Repository.class.isAssignableFrom(type) && inPackages(type, packages)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean inPackages(Class<?> type, List<String> packages) {
+        final String packageName = type.getPackageName();
+        for (String allowed : packages) {
+            if (packageName.equals(allowed) || packageName.startsWith(allowed + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isReadMethod(String methodName) {
+        for (String prefix : READ_METHOD_PREFIXES) {
+            if (methodName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // SUPPORTS: no database transaction is started, only a scope with the read-only flag and a bound connection
+    private static TransactionDefinition readOnlyScope() {
+        final DefaultTransactionDefinition definition =
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_SUPPORTS);
+        definition.setReadOnly(true);
+        return definition;
+    }
+}
@@ -0,0 +1,13 @@
+package io.preboot.refapp.config;
+
+import java.time.Duration;
+
+// Job run by JobScheduler on one node of the cluster once per interval. A run that outlasts the interval may overlap
+// the next one on another node, jobs that must not overlap take a ClusterLock themselves.
+interface RecurringJob {
+    String name();
+
+    Duration interval();
+
+    void run();
+}
@@ -0,0 +1,179 @@
+package io.preboot.refapp.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.preboot.refapp.query.KeysetSqlCache;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Exposes the stats of the application's own infrastructure (task dispatching and lanes, outbox, WebSocket push,
+// mail, caches, session cleanup, replica routing, rate limits and load shedding) as meters. Task and event latencies
+// are recorded by the ObservedEventPublisher, Hikari pools and HTTP requests by Spring Boot itself.
+@Component
+@RequiredArgsConstructor
+class RefappMetrics implements MeterBinder {
+    private static final long TASKS_COUNT_TTL_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+    private final ObjectProvider<TaskDispatcher> taskDispatcher;
+    private final TaskLanes taskLanes;
+    private final FairTaskScheduler fairTaskScheduler;
+    private final JobScheduler jobScheduler;
+    private final TaskLeases taskLeases;
+    private final ObjectProvider<OutboxDispatcher> outboxDispatcher;
+    private final WebSocketPushService webSocketPushService;
+    private final ObjectProvider<BatchingJavaMailSender> mailSender;
+    private final KeysetSqlCache keysetSqlCache;
+    private final SessionCleanupJob sessionCleanupJob;
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final RateLimitFilter rateLimitFilter;
+    private final LoadSheddingFilter loadSheddingFilter;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile long tasksCountedAt = System.nanoTime() - TASKS_COUNT_TTL_NANOS;
+    private volatile double tasksCount = Double.NaN;
+    private volatile MultiGauge tenantQueuedTasks;
+    private volatile MultiGauge tenantInFlightTasks;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tasks.queue.size", this, RefappMetrics::tasksCount)
+                .description("Estimated rows in the task table: pending, running, retrying and dead-queued tasks")
+                .register(registry);
+        taskDispatcher.ifAvailable(dispatcher -> {
+            gauge(registry, "tasks.inflight", dispatcher, d -> d.stats().inFlightTasks());
+            gauge(registry, "tasks.max.concurrent", dispatcher, d -> d.stats().maxConcurrentTasks());
+            gauge(registry, "tasks.dispatch.latency.mean", dispatcher, d -> d.stats()
+                    .meanDispatchLatency()
+                    .toNanos() / 1e9);
+            gauge(registry, "tasks.dispatch.idle.backoff", dispatcher, d -> d.stats()
+                    .idleBackoff()
+                    .toNanos() / 1e9);
+            counter(registry, "tasks.dispatched", dispatcher, d -> d.stats().dispatchedTasks());
+            counter(registry, "tasks.wakeups", dispatcher, d -> d.stats().wakeUps());
+        });
+        taskLanes.stats().keySet().forEach(lane -> {
+            Gauge.builder("tasks.lane.inflight", taskLanes, lanes -> lanes.stats().get(lane).inFlight())
+                    .tag("lane", lane)
+                    .register(registry);
+            Gauge.builder("tasks.lane.limit", taskLanes, lanes -> lanes.stats().get(lane).limit())
+                    .tag("lane", lane)
+                    .register(registry);
+            FunctionCounter.builder("tasks.lane.deferred", taskLanes, lanes -> lanes.stats().get(lane).deferred())
+                    .tag("lane", lane)
+                    .register(registry);
+        });
+        counter(registry, "tasks.fair.released", fairTaskScheduler, s -> s.stats().releasedTasks());
+        counter(registry, "tasks.fair.completed", fairTaskScheduler, s -> s.stats().completedTasks());
+        counter(registry, "tasks.fair.failed", fairTaskScheduler, s -> s.stats().failedTasks());
+        counter(registry, "tasks.fair.rejected", fairTaskScheduler, s -> s.stats().rejectedTasks());
+        counter(registry, "tasks.lease.reclaims", taskLeases, l -> l.stats().reclaims());
+        counter(registry, "tasks.lease.dead.nodes", taskLeases, l -> l.stats().deadNodes());
+        counter(registry, "tasks.lease.losses", taskLeases, l -> l.stats().leaseLosses());
+        counter(registry, "tasks.lease.fenced", taskLeases, l -> l.stats().fencedClaims());
+        gauge(registry, "scheduler.entries", jobScheduler, s -> s.stats().scheduledEntries());
+        counter(registry, "scheduler.fired.tasks", jobScheduler, s -> s.stats().firedTasks());
+        counter(registry, "scheduler.fired.jobs", jobScheduler, s -> s.stats().firedJobs());
+        tenantQueuedTasks = MultiGauge.builder("tasks.tenant.queued").register(registry);
+        tenantInFlightTasks = MultiGauge.builder("tasks.tenant.inflight").register(registry);
+        outboxDispatcher.ifAvailable(dispatcher -> {
+            counter(registry, "outbox.delivered", dispatcher, d -> d.stats().deliveredEvents());
+            counter(registry, "outbox.failed", dispatcher, d -> d.stats().failedDeliveries());
+            counter(registry, "outbox.dead", dispatcher, d -> d.stats().deadLetteredEvents());
+        });
+        counter(registry, "websocket.push.updates", webSocketPushService, s -> s.stats().pushedUpdates());
+        counter(registry, "websocket.push.frames", webSocketPushService, s -> s.stats().sentFrames());
+        gauge(registry, "websocket.push.pending", webSocketPushService, s -> s.stats().pendingTargets());
+        mailSender.ifAvailable(sender -> {
+            gauge(registry, "mail.queued", sender, s -> s.stats().queuedMessages());
+            counter(registry, "mail.sent", sender, s -> s.stats().sentMessages());
+            counter(registry, "mail.failed", sender, s -> s.stats().failedMessages());
+            counter(registry, "mail.connections", sender, s -> s.stats().connections());
+        });
+        gauge(registry, "query.sql.cache.size", keysetSqlCache, c -> c.stats().size());
+        counter(registry, "query.sql.cache.hits", keysetSqlCache, c -> c.stats().hits());
+        counter(registry, "query.sql.cache.misses", keysetSqlCache, c -> c.stats().misses());
+        counter(registry, "sessions.cleanup.runs", sessionCleanupJob, j -> j.stats().runs());
+        counter(registry, "sessions.cleanup.chunks", sessionCleanupJob, j -> j.stats().chunks());
+        gauge(registry, "sessions.cleanup.last.duration", sessionCleanupJob, j -> j.stats()
+                .lastRunDuration()
+                .toNanos() / 1e9);
+        counter(registry, "http.ratelimit.rejected", rateLimitFilter, f -> f.stats().rejectedRequests());
+        gauge(registry, "http.ratelimit.keys", rateLimitFilter, f -> f.stats().trackedKeys());
+        gauge(registry, "http.inflight", loadSheddingFilter, f -> f.stats().inFlight());
+        gauge(registry, "http.concurrency.limit", loadSheddingFilter, f -> f.stats().limit());
+        counter(registry, "http.shed", loadSheddingFilter, f -> f.stats().shedRequests());
+        replicaRoutingDataSource.ifAvailable(routing -> {
+            counter(registry, "datasource.routing.replica", routing, r -> r.stats().replicaConnections());
+            counter(registry, "datasource.routing.primary", routing, r -> r.stats().primaryConnections());
+            counter(registry, "datasource.routing.lag.fallbacks", routing, r -> r.stats().lagFallbacks());
+            counter(registry, "datasource.routing.sticky.fallbacks", routing, r -> r.stats().stickyFallbacks());
+            counter(registry, "datasource.routing.anonymous.fallbacks", routing, r -> r.stats().anonymousFallbacks());
+        });
+        replicaLagMonitor.ifAvailable(monitor -> gauge(registry, "datasource.replica.lag", monitor, m -> {
+            final Duration lag = m.lag();
+            return lag == null ? Double.NaN : lag.toNanos() / 1e9;
+        }));
+    }
+
+    // Tenants come and go, so their rows are replaced wholesale; tenants without tasks are not reported
+    @Scheduled(fixedRate = 15000)
+    void refreshTenantGauges() {
+        if (tenantQueuedTasks == null) {
+            return;
+        }
+        final Map<UUID, FairTaskScheduler.TenantStats> tenants = fairTaskScheduler.stats().tenants();
+        tenantQueuedTasks.register(tenantRows(tenants, FairTaskScheduler.TenantStats::queued), true);
+        tenantInFlightTasks.register(tenantRows(tenants, FairTaskScheduler.TenantStats::inFlight), true);
+    }
+
+    private static List<MultiGauge.Row<?>> tenantRows(
+            Map<UUID, FairTaskScheduler.TenantStats> tenants, ToLongFunction<FairTaskScheduler.TenantStats> value) {
+        return tenants.entrySet().stream()
+                .<MultiGauge.Row<?>>map(entry -> MultiGauge.Row.of(
+                        Tags.of("tenant", entry.getKey().toString()), value.applyAsLong(entry.getValue())))
+                .toList();
+    }
+
+    // The planner's row estimate instead of count(*): the table keeps dead-queued tasks for dead-queue-after, so
+    // counting it would scan all of them on every node. The estimate is refreshed by autovacuum and ANALYZE, and is
+    // -1 until the table was first analyzed. Scrapes within the TTL reuse the last value.
+    private double tasksCount() {
+        if (System.nanoTime() - tasksCountedAt >= TASKS_COUNT_TTL_NANOS) {
+            tasksCountedAt = System.nanoTime();
+            try {
+                final Long count = jdbcTemplate.queryForObject(
+                        "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)",
+                        Long.class,
+                        TasksConfig.TASKS_TABLE);
+                tasksCount = count == null || count < 0 ? Double.NaN : count;
+            } catch (DataAccessException e) {
+                tasksCount = Double.NaN;
+            }
+        }
+        return tasksCount;
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, source, value).register(registry);
+    }
+}
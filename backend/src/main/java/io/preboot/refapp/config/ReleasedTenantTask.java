@@ -0,0 +1,13 @@
+package io.preboot.refapp.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// What FairTaskScheduler puts into the task queue for a backlog row: the task's class name and JSON together with the
+// row id, so the end of its first attempt frees exactly this row's in-flight slot. Unwrapped before the handler runs.
+public record ReleasedTenantTask(long backlogId, String taskType, JsonNode task) {
+
+    // Simple class name of the wrapped task, the name task lanes and task metrics know it by
+    public String taskName() {
+        return taskType.substring(Math.max(taskType.lastIndexOf('.'), taskType.lastIndexOf('$')) + 1);
+    }
+}
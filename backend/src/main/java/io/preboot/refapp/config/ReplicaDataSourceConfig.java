@@ -0,0 +1,101 @@
+package io.preboot.refapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseDataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// Active when app.datasource.replica.url is set: replaces the auto-configured pool with a primary and a replica pool,
+// each with its own Hikari settings, behind a routing DataSource. Liquibase and notifications always use the primary.
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replica.url:}'.isEmpty()")
+class ReplicaDataSourceConfig {
+
+    @Bean
+    @LiquibaseDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties
+                .initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    HikariDataSource replicaDataSource(
+            DataSourceProperties dataSourceProperties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(dataSourceProperties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${app.datasource.replica.max-lag:2s}") Duration maxLag,
+            @Value("${app.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval) {
+        return new ReplicaLagMonitor(new JdbcTemplate(replicaDataSource), maxLag, lagCheckInterval);
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicaLagMonitor replicaLagMonitor,
+            @Value("${app.datasource.replica.sticky-duration:5s}") Duration stickyDuration) {
+        return new ReplicaRoutingDataSource(
+                primaryDataSource, replicaDataSource, replicaLagMonitor::isReplicaUsable, stickyDuration);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    // Repository reads called outside of a transaction become read-only scopes, so they are routed to the replica.
+    // Only the application's own repositories: library ones (e.g. preboot-auth sessions) must read their own writes.
+    @Bean
+    static BeanPostProcessor readOnlyRepositoryPostProcessor(
+            ObjectProvider<PlatformTransactionManager> transactionManager,
+            @Value("${app.datasource.replica.repository-packages:io.preboot.refapp}") List<String> packages) {
+        final ReadOnlyRepositoryInterceptor interceptor = new ReadOnlyRepositoryInterceptor(transactionManager);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!ReadOnlyRepositoryInterceptor.appliesTo(bean, packages)) {
+                    return bean;
+                }
+                final ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(!Proxy.isProxyClass(bean.getClass())); // keep class based injection
+                proxyFactory.addAdvice(interceptor);
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package io.preboot.refapp.config;
+
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Measures how far the replica's replay is behind the primary. The replica is only used while the lag is within the
+// limit; until the first successful check and whenever the replica can't be reached, reads stay on the primary.
+@Slf4j
+class ReplicaLagMonitor implements SmartLifecycle {
+    // 0 when all received WAL is replayed (an idle primary doesn't make the replica look stale), or when the database
+    // is not in recovery at all (a standalone database used as replica, e.g. in tests)
+    private static final String REPLICA_LAG_SQL =
+            """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000
+            END""";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMillis;
+    private final Duration checkInterval;
+
+    private volatile long lagMillis = Long.MAX_VALUE;
+    private volatile boolean running;
+    private Thread monitorThread;
+
+    ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, Duration maxLag, Duration checkInterval) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.maxLagMillis = maxLag.toMillis();
+        this.checkInterval = checkInterval;
+    }
+
+    boolean isReplicaUsable() {
+        return lagMillis <= maxLagMillis;
+    }
+
+    Duration lag() {
+        return lagMillis == Long.MAX_VALUE ? null : Duration.ofMillis(lagMillis);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        monitorThread = Thread.ofPlatform().name("replica-lag-monitor").daemon().start(this::monitor);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (monitorThread != null) {
+            monitorThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void monitor() {
+        while (running) {
+            check();
+            try {
+                Thread.sleep(checkInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    void check() {
+        final boolean wasUsable = isReplicaUsable();
+        try {
+            final Double lag = replicaJdbcTemplate.queryForObject(REPLICA_LAG_SQL, Double.class);
+            lagMillis = lag == null ? Long.MAX_VALUE : lag.longValue();
+        } catch (DataAccessException e) {
+            lagMillis = Long.MAX_VALUE;
+            if (wasUsable) {
+                log.warn("Replica lag check failed, routing reads to the primary", e);
+            }
+            return;
+        }
+        if (wasUsable != isReplicaUsable()) {
+            log.info(
+                    "Replica lag is {} ms, routing reads to the {}",
+                    lagMillis,
+                    isReplicaUsable() ? "replica" : "primary");
+        }
+    }
+}
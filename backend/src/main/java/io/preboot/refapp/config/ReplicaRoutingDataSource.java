@@ -0,0 +1,110 @@
+package io.preboot.refapp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.preboot.auth.api.dto.UserAccountInfo;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Sends connections of a signed in user's read-only transactions to the replica, unless the replica lags behind too
+// much or the user committed a write within the sticky duration (read-your-writes). Everything else goes to the
+// primary, including reads without a user: task and outbox handlers and jobs often read what another thread just
+// committed, and without a user there is no write to stick to. Used behind a LazyConnectionDataSourceProxy, so the
+// decision is taken once the transaction's read-only flag is known.
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final BooleanSupplier replicaUsable;
+    private final Cache<UUID, Boolean> recentWriters;
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder lagFallbacks = new LongAdder();
+    private final LongAdder stickyFallbacks = new LongAdder();
+    private final LongAdder anonymousFallbacks = new LongAdder();
+
+    ReplicaRoutingDataSource(
+            DataSource primary, DataSource replica, BooleanSupplier replicaUsable, Duration stickyDuration) {
+        this.replicaUsable = replicaUsable;
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(stickyDuration).build();
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    Stats stats() {
+        return new Stats(
+                replicaConnections.sum(),
+                primaryConnections.sum(),
+                lagFallbacks.sum(),
+                stickyFallbacks.sum(),
+                anonymousFallbacks.sum());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        final UUID userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            markWriterOnCommit(userId);
+            return primary();
+        }
+        if (!replicaUsable.getAsBoolean()) {
+            lagFallbacks.increment();
+            return primary();
+        }
+        if (userId == null) {
+            anonymousFallbacks.increment();
+            return primary();
+        }
+        if (recentWriters.getIfPresent(userId) != null) {
+            stickyFallbacks.increment();
+            return primary();
+        }
+        replicaConnections.increment();
+        return Target.REPLICA;
+    }
+
+    private Target primary() {
+        primaryConnections.increment();
+        return Target.PRIMARY;
+    }
+
+    // A read-write transaction may not have written anything, sticking to the primary a bit longer is harmless
+    private void markWriterOnCommit(UUID userId) {
+        if (userId == null
+                || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static UUID currentUserId() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserAccountInfo userAccountInfo
+                ? userAccountInfo.uuid()
+                : null;
+    }
+
+    record Stats(
+            long replicaConnections,
+            long primaryConnections,
+            long lagFallbacks,
+            long stickyFallbacks,
+            long anonymousFallbacks) {}
+}
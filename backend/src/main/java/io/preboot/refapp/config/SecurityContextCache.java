@@ -0,0 +1,44 @@
+package io.preboot.refapp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Interner;
+import io.preboot.securedata.context.SecurityContext;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Cross-request cache of security contexts. Contexts are keyed by user, tenant and roles, so a role or tenant switch
+// always resolves to a new entry; only a change of the permissions a role grants can be served stale. preboot-auth
+// publishes no event for such changes, so they take effect within expire-after-write. Logouts need no invalidation: a
+// cached context is only reached after preboot-auth has validated the session.
+@Component
+public class SecurityContextCache {
+    private final Cache<Key, SecurityContext> contexts;
+    private final Interner<Set<String>> sets = Interner.newWeakInterner();
+
+    SecurityContextCache(
+            @Value("${app.security-context-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.security-context-cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.contexts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    SecurityContext get(UUID userId, UUID tenantId, Set<String> roles, Supplier<Set<String>> permissions) {
+        return contexts.get(
+                new Key(userId, tenantId, intern(roles)),
+                key -> new SecurityContextProviderService.BasicSecurityContext(
+                        key.userId(), key.tenantId(), key.roles(), intern(permissions.get())));
+    }
+
+    private Set<String> intern(Set<String> values) {
+        return sets.intern(Set.copyOf(values));
+    }
+
+    private record Key(UUID userId, UUID tenantId, Set<String> roles) {}
+}
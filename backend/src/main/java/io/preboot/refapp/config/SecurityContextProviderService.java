@@ -10,25 +10,49 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @Service
 @RequiredArgsConstructor
 class SecurityContextProviderService implements SecurityContextProvider {
+    private static final String REQUEST_ATTRIBUTE = SecurityContextProviderService.class.getName() + ".CONTEXT";
 
+    private final SecurityContextCache securityContextCache;
+
+    // Called by the secure data layer for every repository operation, so the context is memoized per request and
+    // shared across requests through the cache
     @Override
     public SecurityContext getCurrentContext() {
         final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null) {
-            final UserAccountInfo userAccountInfo = (UserAccountInfo) authentication.getPrincipal();
-            return new BasicSecurityContext(
-                    userAccountInfo.uuid(),
-                    userAccountInfo.tenantId(),
-                    userAccountInfo.roles(),
-                    userAccountInfo.getAllPermissions());
+        if (authentication == null) {
+            return null;
+        }
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null
+                && requestAttributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                        instanceof RequestContext requestContext
+                && requestContext.authentication() == authentication) {
+            return requestContext.securityContext();
         }
-        return null;
+
+        final UserAccountInfo userAccountInfo = (UserAccountInfo) authentication.getPrincipal();
+        final SecurityContext securityContext = securityContextCache.get(
+                userAccountInfo.uuid(),
+                userAccountInfo.tenantId(),
+                userAccountInfo.roles(),
+                userAccountInfo::getAllPermissions);
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(
+                    REQUEST_ATTRIBUTE,
+                    new RequestContext(authentication, securityContext),
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+        return securityContext;
     }
 
+    private record RequestContext(Authentication authentication, SecurityContext securityContext) {}
+
     static class BasicSecurityContext implements SecurityContext {
         private final UUID userId;
         private final UUID tenantId;
@@ -1,21 +1,154 @@
 package io.preboot.refapp.config;
 
 import io.preboot.auth.api.UserAccountSessionManagementApi;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
-import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+// Deletes expired sessions on one node at a time and in small steps: the expiry range since the last run is walked
+// with a cursor, one slice per delete, so no single delete holds row locks or writes WAL for long. The slice adapts to
+// how long deletes take and the job pauses between them, keeping the database responsive for logins. Triggered once per
+// interval across the cluster by the JobScheduler; the lock keeps a run that outlasts the interval from overlapping.
+// The cursor is stored in job_cursor after every chunk, so restarts and leader changes continue where the last run
+// stopped. Only the very first run starts at the initial lookback and deletes everything older in its first chunk.
 @Service
-@EnableScheduling
-@RequiredArgsConstructor
-class SessionCleanupJob {
+@Slf4j
+class SessionCleanupJob implements RecurringJob {
+    private static final long CLEANUP_LOCK_KEY = 0x73657373696f6eL; // "session"
+    private static final String SAVE_CURSOR =
+            """
+            INSERT INTO job_cursor (name, position, updated_at) VALUES (?, ?, now())
+            ON CONFLICT (name) DO UPDATE SET position = excluded.position, updated_at = excluded.updated_at
+            """;
+
     private final UserAccountSessionManagementApi userAccountSessionManagementApi;
+    private final ClusterLock clusterLock;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration interval;
+    private final Duration initialLookback;
+    private final Duration minSlice;
+    private final Duration maxSlice;
+    private final long targetChunkNanos;
+    private final Duration pauseBetweenChunks;
+
+    // Sessions expired before the cursor are gone; the last position seen by this node, for the stats
+    private volatile Instant cursor;
+    private volatile Duration slice;
+    private volatile Duration lastRunDuration = Duration.ZERO;
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+
+    SessionCleanupJob(
+            UserAccountSessionManagementApi userAccountSessionManagementApi,
+            ClusterLock clusterLock,
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.session-cleanup.interval:15m}") Duration interval,
+            @Value("${app.session-cleanup.initial-lookback:1d}") Duration initialLookback,
+            @Value("${app.session-cleanup.min-slice:1m}") Duration minSlice,
+            @Value("${app.session-cleanup.max-slice:6h}") Duration maxSlice,
+            @Value("${app.session-cleanup.target-chunk-duration:200ms}") Duration targetChunkDuration,
+            @Value("${app.session-cleanup.pause-between-chunks:100ms}") Duration pauseBetweenChunks) {
+        this.userAccountSessionManagementApi = userAccountSessionManagementApi;
+        this.clusterLock = clusterLock;
+        this.jdbcTemplate = jdbcTemplate;
+        this.interval = interval;
+        this.initialLookback = initialLookback;
+        this.minSlice = minSlice;
+        this.maxSlice = maxSlice.compareTo(minSlice) < 0 ? minSlice : maxSlice;
+        this.targetChunkNanos = targetChunkDuration.toNanos();
+        this.pauseBetweenChunks = pauseBetweenChunks;
+        this.slice = minSlice;
+    }
+
+    @Override
+    public String name() {
+        return "session-cleanup";
+    }
 
-    @Scheduled(fixedRate = 900000) // 15 min
-    public void cleanExpiredSessions() {
-        userAccountSessionManagementApi.cleanExpiredSessions(
-                Instant.now()); // not gathering previous sessions data for analysis
+    @Override
+    public Duration interval() {
+        return interval;
     }
+
+    @Override
+    public void run() {
+        if (!clusterLock.runIfAvailable(CLEANUP_LOCK_KEY, this::cleanUp)) {
+            log.debug("Expired session cleanup is running on another node");
+        }
+    }
+
+    Stats stats() {
+        return new Stats(runs.sum(), chunks.sum(), lastRunDuration, slice, cursor);
+    }
+
+    private void cleanUp() {
+        final long startedAt = System.nanoTime();
+        final Instant now = Instant.now();
+        final Instant saved = loadCursor();
+        Instant from = saved == null ? now.minus(initialLookback) : saved;
+        Duration currentSlice = slice;
+        int runChunks = 0;
+        try {
+            while (from.isBefore(now)) {
+                final Instant to = min(from.plus(currentSlice), now);
+                final long chunkStartedAt = System.nanoTime();
+                // not gathering previous sessions data for analysis
+                userAccountSessionManagementApi.cleanExpiredSessions(to);
+                currentSlice = adjustSlice(currentSlice, System.nanoTime() - chunkStartedAt);
+                from = to;
+                saveCursor(to);
+                runChunks++;
+                chunks.increment();
+                if (from.isBefore(now)) {
+                    Thread.sleep(pauseBetweenChunks);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            slice = currentSlice;
+            lastRunDuration = Duration.ofNanos(System.nanoTime() - startedAt);
+            runs.increment();
+            log.info(
+                    "Expired session cleanup took {} ms in {} chunks, slice is now {}",
+                    lastRunDuration.toMillis(),
+                    runChunks,
+                    currentSlice);
+        }
+    }
+
+    private Instant loadCursor() {
+        final List<Timestamp> positions =
+                jdbcTemplate.queryForList("SELECT position FROM job_cursor WHERE name = ?", Timestamp.class, name());
+        return positions.isEmpty() ? null : positions.getFirst().toInstant();
+    }
+
+    private void saveCursor(Instant position) {
+        jdbcTemplate.update(SAVE_CURSOR, name(), Timestamp.from(position));
+        cursor = position;
+    }
+
+    private Duration adjustSlice(Duration current, long chunkNanos) {
+        if (chunkNanos > targetChunkNanos) {
+            final Duration halved = current.dividedBy(2);
+            return halved.compareTo(minSlice) < 0 ? minSlice : halved;
+        }
+        if (chunkNanos < targetChunkNanos / 2) {
+            final Duration doubled = current.multipliedBy(2);
+            return doubled.compareTo(maxSlice) > 0 ? maxSlice : doubled;
+        }
+        return current;
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    record Stats(long runs, long chunks, Duration lastRunDuration, Duration slice, Instant cursor) {}
 }
@@ -0,0 +1,43 @@
+package io.preboot.refapp.config;
+
+import io.preboot.eventbus.EventHandler;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+
+// Support for the "startup" profile, see application.yml
+@Configuration
+class StartupConfig {
+    private static final List<Class<? extends Annotation>> EAGER_METHOD_ANNOTATIONS =
+            List.of(Scheduled.class, Schedules.class, EventHandler.class);
+
+    // With spring.main.lazy-initialization a bean is only created on first use, but scheduled methods are registered
+    // and event handlers discovered when their bean is created, so those beans stay eager.
+    @Bean
+    static LazyInitializationExcludeFilter eagerJobsAndHandlersExcludeFilter() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && hasEagerMethods(beanType);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.liquibase.skip-unchanged", havingValue = "true")
+    static LiquibaseFingerprint liquibaseFingerprint(ObjectProvider<LiquibaseProperties> liquibaseProperties) {
+        return new LiquibaseFingerprint(liquibaseProperties);
+    }
+
+    private static boolean hasEagerMethods(Class<?> beanType) {
+        final MethodIntrospector.MetadataLookup<Boolean> eager = method -> EAGER_METHOD_ANNOTATIONS.stream()
+                        .anyMatch(annotation -> AnnotatedElementUtils.hasAnnotation(method, annotation))
+                ? Boolean.TRUE
+                : null;
+        return !MethodIntrospector.selectMethods(beanType, eager).isEmpty();
+    }
+}
@@ -0,0 +1,204 @@
+package io.preboot.refapp.config;
+
+import io.preboot.eventbus.tasks.TaskRunner;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+// Event-driven replacement for the polling TaskRunnerJob: the dispatcher sleeps until it is woken up (task published
+// locally or on another node) or its idle backoff expires, then keeps starting tasks for as long as permits are free.
+@Slf4j
+class TaskDispatcher implements SmartLifecycle {
+    private final TaskRunner taskRunner;
+    private final BooleanSupplier mayClaimTasks; // false while this node does not hold its task lease
+    private final int maxConcurrentTasks;
+    private final int claimBatchSize;
+    private final long minIdleBackoffMillis;
+    private final long maxIdleBackoffMillis;
+    private final Semaphore permits;
+    private final TaskExecutor taskExecutor = new VirtualThreadTaskExecutor("task-runner");
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUpCondition = lock.newCondition();
+    private long wakeUpRequestedAt; // guarded by lock, System.nanoTime() of the oldest unserved wake-up, 0 if none
+
+    private final LongAdder wakeUps = new LongAdder();
+    private final LongAdder dispatchedTasks = new LongAdder();
+    private final LongAdder dispatchLatencyNanos = new LongAdder();
+    private final LongAdder dispatchLatencySamples = new LongAdder();
+    private final AtomicLong idleBackoffMillis = new AtomicLong();
+    private volatile boolean pendingTasks; // result of the last queue check
+
+    private volatile boolean running;
+    private Thread dispatcherThread;
+
+    TaskDispatcher(
+            TaskRunner taskRunner,
+            BooleanSupplier mayClaimTasks,
+            int maxConcurrentTasks,
+            int claimBatchSize,
+            Duration minIdleBackoff,
+            Duration maxIdleBackoff) {
+        if (maxConcurrentTasks < 1) {
+            throw new IllegalArgumentException("maxConcurrentTasks must be positive, was " + maxConcurrentTasks);
+        }
+        if (claimBatchSize < 1) {
+            throw new IllegalArgumentException("claimBatchSize must be positive, was " + claimBatchSize);
+        }
+        this.taskRunner = taskRunner;
+        this.mayClaimTasks = mayClaimTasks;
+        this.maxConcurrentTasks = maxConcurrentTasks;
+        this.claimBatchSize = claimBatchSize;
+        this.minIdleBackoffMillis = Math.max(1, minIdleBackoff.toMillis());
+        this.maxIdleBackoffMillis = Math.max(minIdleBackoffMillis, maxIdleBackoff.toMillis());
+        this.permits = new Semaphore(maxConcurrentTasks);
+        this.idleBackoffMillis.set(minIdleBackoffMillis);
+    }
+
+    // Cheap and non-blocking, safe to call from notification listeners and publishers
+    void wakeUp() {
+        lock.lock();
+        try {
+            if (wakeUpRequestedAt == 0) {
+                wakeUpRequestedAt = System.nanoTime();
+            }
+            wakeUpCondition.signal();
+        } finally {
+            lock.unlock();
+        }
+        wakeUps.increment();
+    }
+
+    Stats stats() {
+        final long samples = dispatchLatencySamples.sum();
+        return new Stats(
+                maxConcurrentTasks - permits.availablePermits(),
+                maxConcurrentTasks,
+                pendingTasks,
+                wakeUps.sum(),
+                dispatchedTasks.sum(),
+                samples == 0 ? Duration.ZERO : Duration.ofNanos(dispatchLatencyNanos.sum() / samples),
+                Duration.ofMillis(idleBackoffMillis.get()));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        dispatcherThread = Thread.ofPlatform().name("task-dispatcher").daemon().start(this::dispatch);
+        log.info(
+                "Task dispatcher started with {} permits and claim batches of {}", maxConcurrentTasks, claimBatchSize);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (dispatcherThread != null) {
+            dispatcherThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                permits.acquire(); // backpressure: never look for work we have no capacity to run
+                final int acquired = 1 + permits.drainPermits();
+                int started = 0;
+                try {
+                    final long wokenUpAt = takeWakeUp();
+                    pendingTasks = mayClaimTasks.getAsBoolean() && taskRunner.hasPendingTasks();
+                    if (pendingTasks) {
+                        idleBackoffMillis.set(minIdleBackoffMillis);
+                        // one queue check fans out to every free permit, each worker then drains a batch on its own
+                        for (; started < acquired; started++) {
+                            taskExecutor.execute(() -> runTasks(wokenUpAt));
+                        }
+                    }
+                } finally {
+                    permits.release(acquired - started);
+                }
+                if (started == 0) {
+                    awaitWakeUp(idleBackoffMillis.getAndUpdate(
+                            current -> Math.min(current * 2, maxIdleBackoffMillis)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Task dispatch failed, backing off for {} ms", maxIdleBackoffMillis, e);
+                try {
+                    awaitWakeUp(maxIdleBackoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Claims tasks back to back on the same virtual thread until the batch is done or the queue is drained, so a busy
+    // queue costs a single claim round trip per task instead of a pending check plus a claim.
+    private void runTasks(long wokenUpAt) {
+        try {
+            if (wokenUpAt != 0) {
+                dispatchLatencyNanos.add(System.nanoTime() - wokenUpAt);
+                dispatchLatencySamples.increment();
+            }
+            for (int i = 0; i < claimBatchSize && running && mayClaimTasks.getAsBoolean(); i++) {
+                final String taskType = taskRunner.runTask();
+                if (taskType == null) {
+                    break; // queue drained, let the dispatcher wait for the next wake-up
+                }
+                dispatchedTasks.increment();
+                log.debug("Task {} executed", taskType);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private long takeWakeUp() {
+        lock.lock();
+        try {
+            final long requestedAt = wakeUpRequestedAt;
+            wakeUpRequestedAt = 0;
+            return requestedAt;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitWakeUp(long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (running && wakeUpRequestedAt == 0 && remainingNanos > 0) {
+                remainingNanos = wakeUpCondition.awaitNanos(remainingNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    record Stats(
+            int inFlightTasks,
+            int maxConcurrentTasks,
+            boolean pendingTasks,
+            long wakeUps,
+            long dispatchedTasks,
+            Duration meanDispatchLatency,
+            Duration idleBackoff) {}
+}
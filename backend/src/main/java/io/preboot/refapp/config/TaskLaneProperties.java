@@ -0,0 +1,23 @@
+package io.preboot.refapp.config;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Lanes are keyed by task type, i.e. the simple class name of the task payload
+@ConfigurationProperties("app.task-runner")
+record TaskLaneProperties(Map<String, Lane> lanes) {
+    TaskLaneProperties {
+        lanes = lanes == null ? Map.of() : Map.copyOf(lanes);
+    }
+
+    record Lane(Integer minConcurrency, int maxConcurrency, Duration retryDelay) {
+        Lane {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("Task lane max-concurrency must be positive");
+            }
+            minConcurrency = minConcurrency == null ? 1 : Math.min(minConcurrency, maxConcurrency);
+            retryDelay = retryDelay == null ? Duration.ofSeconds(5) : retryDelay;
+        }
+    }
+}
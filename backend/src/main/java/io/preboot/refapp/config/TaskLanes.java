@@ -0,0 +1,94 @@
+package io.preboot.refapp.config;
+
+import io.preboot.eventbus.EventPublisher;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+// Wraps the event publisher used by the TaskRunner so every task type configured under app.task-runner.lanes runs in
+// its own concurrency pool. A lane is sized between its min and max concurrency from live task latency, so a slow
+// dependency (SMTP, report generation) shrinks only its own lane. A task that finds its lane full is not a failure: it
+// is handed back to the queue through the JobScheduler to run again after the lane's retry-delay, and its current run
+// completes right away. It neither waits while holding a task runner permit nor uses up one of its retry attempts.
+@Slf4j
+class TaskLanes implements EventPublisher {
+    private final EventPublisher delegate;
+    private final JobScheduler jobScheduler;
+    private final Map<String, Lane> lanes;
+
+    TaskLanes(EventPublisher delegate, JobScheduler jobScheduler, Map<String, TaskLaneProperties.Lane> laneProperties) {
+        this.delegate = delegate;
+        this.jobScheduler = jobScheduler;
+        this.lanes = laneProperties.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> new Lane(entry.getValue())));
+        if (!lanes.isEmpty()) {
+            log.info("Task lanes configured: {}", laneProperties);
+        }
+    }
+
+    @Override
+    public void publish(Object event) {
+        final Lane lane = lanes.get(taskName(event));
+        if (lane == null) {
+            delegate.publish(event);
+        } else if (!lane.tryAcquire()) {
+            // stored in the task runner's transaction, if there is one; a tenant task keeps its backlog row id
+            jobScheduler.schedule(event, lane.retryDelay);
+            lane.deferred.increment();
+        } else {
+            final long startedAt = System.nanoTime();
+            try {
+                delegate.publish(event);
+            } finally {
+                lane.release(System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    // Released tenant tasks reach the lanes still wrapped, they run in the lane of the task they carry
+    private static String taskName(Object event) {
+        return event instanceof ReleasedTenantTask released ? released.taskName() : event.getClass().getSimpleName();
+    }
+
+    Map<String, LaneStats> stats() {
+        return lanes.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().stats()));
+    }
+
+    record LaneStats(int inFlight, int limit, long deferred) {}
+
+    private static class Lane {
+        private final AdaptiveConcurrencyLimit limit;
+        private final Duration retryDelay;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder deferred = new LongAdder();
+
+        Lane(TaskLaneProperties.Lane properties) {
+            this.limit = new AdaptiveConcurrencyLimit(
+                    properties.maxConcurrency(), properties.minConcurrency(), properties.maxConcurrency());
+            this.retryDelay = properties.retryDelay();
+        }
+
+        boolean tryAcquire() {
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= limit.getLimit()) {
+                    return false;
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release(long rttNanos) {
+            limit.onSample(rttNanos, inFlight.getAndDecrement());
+        }
+
+        LaneStats stats() {
+            return new LaneStats(inFlight.get(), limit.getLimit(), deferred.sum());
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package io.preboot.refapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.preboot.eventbus.EventPublisher;
+import io.preboot.eventbus.tasks.TaskRunner;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Short leases for running tasks. Every node renews the heartbeat of its running tasks and its own row in
+// task_runner_node every heartbeat-interval (the task heartbeat only while it runs tasks). Once per heartbeat interval
+// across the cluster the reclaim job looks for nodes whose row expired; only then are stalled tasks reclaimed, so a
+// crashed node's tasks are back in the queue within about one lease while healthy clusters only touch the node table.
+// A full reclaim still runs every full-reclaim-interval as a safety net.
+//
+// The node row is renewed on its own thread over its own connection, whose connection and query timeouts are one
+// heartbeat interval, so neither a busy scheduler pool nor an exhausted primary pool lets a healthy node's lease lapse.
+//
+// Completion happens inside the preboot task runner and cannot carry a fencing token, so fencing is done by the node
+// itself: a node that could not renew its lease in time claims no further tasks. An expired row cannot be renewed; the
+// reclaim job deletes it only after it reclaimed the node's stalled tasks, so the node registers again only once its
+// tasks were verifiably put back in the queue. Handlers that were already running when the lease was lost run to the
+// end; if their task heartbeats lapsed too, the reclaimed task runs a second time elsewhere (tasks are at least once).
+@Slf4j
+class TaskLeases implements RecurringJob, SmartLifecycle {
+    private static final String RENEW_NODE =
+            """
+            UPDATE task_runner_node SET last_seen_at = now()
+            WHERE node_id = ? AND last_seen_at >= now() - make_interval(secs => ?)
+            """;
+    private static final String REGISTER_NODE =
+            "INSERT INTO task_runner_node (node_id, last_seen_at) VALUES (?, now()) ON CONFLICT (node_id) DO NOTHING";
+    private static final String SELECT_DEAD_NODES =
+            "SELECT node_id FROM task_runner_node WHERE last_seen_at < now() - make_interval(secs => ?)";
+    // Expired rows cannot be renewed, so the rows selected before the reclaim are still expired now
+    private static final String REMOVE_DEAD_NODES = "DELETE FROM task_runner_node WHERE node_id = ANY(?)";
+
+    private final UUID nodeId = UUID.randomUUID();
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate heartbeatJdbcTemplate;
+    private final HikariDataSource heartbeatDataSource;
+    private final ObjectProvider<TaskRunner> taskRunner; // the task runner's publisher depends on this class
+    private final Duration heartbeatInterval;
+    private final Duration lease;
+    private final Duration fullReclaimInterval;
+
+    private final AtomicInteger inFlightTasks = new AtomicInteger();
+    private final LongAdder heartbeats = new LongAdder();
+    private final LongAdder reclaims = new LongAdder();
+    private final LongAdder deadNodes = new LongAdder();
+    private final LongAdder fencedClaims = new LongAdder();
+    private final LongAdder leaseLosses = new LongAdder();
+
+    private volatile long renewedAt; // System.nanoTime() of the last renewal, 0 before the first one
+    private volatile boolean awaitingReclaim; // the row expired, registering again waits for the reclaim job
+    private volatile Instant lastFullReclaim = Instant.now();
+    private ScheduledExecutorService nodeHeartbeat;
+    private ScheduledExecutorService taskHeartbeat;
+
+    TaskLeases(
+            JdbcTemplate jdbcTemplate,
+            HikariDataSource heartbeatDataSource,
+            ObjectProvider<TaskRunner> taskRunner,
+            Duration heartbeatInterval,
+            Duration lease,
+            Duration fullReclaimInterval) {
+        if (lease.compareTo(heartbeatInterval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("Task lease must be at least twice the heartbeat interval");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.heartbeatDataSource = heartbeatDataSource;
+        this.heartbeatJdbcTemplate = new JdbcTemplate(heartbeatDataSource);
+        this.heartbeatJdbcTemplate.setQueryTimeout((int) Math.max(1, heartbeatInterval.toSeconds()));
+        this.taskRunner = taskRunner;
+        this.heartbeatInterval = heartbeatInterval;
+        this.lease = lease;
+        this.fullReclaimInterval = fullReclaimInterval;
+    }
+
+    // Checked by the task dispatcher and the polling job before they claim a task. A task is never refused once
+    // claimed: a failed run would be recorded on a task that another node may have reclaimed by then.
+    boolean mayClaimTasks() {
+        if (renewedAt == 0 || awaitingReclaim || leaseLost()) {
+            fencedClaims.increment();
+            return false;
+        }
+        return true;
+    }
+
+    // Wraps the task runner's publisher to count running tasks, the task heartbeat is only sent while there are any
+    EventPublisher tracking(EventPublisher delegate) {
+        return new EventPublisher() {
+            @Override
+            public void publish(Object event) {
+                inFlightTasks.incrementAndGet();
+                try {
+                    delegate.publish(event);
+                } finally {
+                    inFlightTasks.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void start() {
+        final long intervalNanos = heartbeatInterval.toNanos();
+        nodeHeartbeat = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("task-lease-heartbeat").daemon().factory());
+        nodeHeartbeat.scheduleAtFixedRate(this::renewNode, 0, intervalNanos, TimeUnit.NANOSECONDS);
+        // the task heartbeat goes through the task runner's own pool, it must not hold up the node's renewal
+        taskHeartbeat = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("task-heartbeat").daemon().factory());
+        taskHeartbeat.scheduleAtFixedRate(this::renewTasks, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (nodeHeartbeat != null) {
+            nodeHeartbeat.shutdownNow();
+            taskHeartbeat.shutdownNow();
+            nodeHeartbeat = null;
+            taskHeartbeat = null;
+            heartbeatDataSource.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return nodeHeartbeat != null;
+    }
+
+    void renewNode() {
+        final long startedAt = System.nanoTime();
+        try {
+            if (heartbeatJdbcTemplate.update(RENEW_NODE, nodeId, (double) lease.toSeconds()) == 1) {
+                renewed(startedAt);
+            } else if (renewedAt == 0 || !nodeRowExists()) {
+                if (awaitingReclaim) {
+                    log.warn("Tasks of task runner node {} were reclaimed, registering again", nodeId);
+                }
+                heartbeatJdbcTemplate.update(REGISTER_NODE, nodeId);
+                renewed(startedAt);
+            } else if (!awaitingReclaim) {
+                awaitingReclaim = true;
+                leaseLosses.increment();
+                log.warn("Task lease of node {} expired, claiming no tasks until its tasks were reclaimed", nodeId);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Task lease renewal failed, lease expires in {}", remainingLease(), e);
+        }
+    }
+
+    private void renewTasks() {
+        try {
+            if (inFlightTasks.get() > 0) {
+                taskRunner.getObject().updateHeartbeat();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Renewing the heartbeat of running tasks failed", e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "task-lease-reclaim";
+    }
+
+    @Override
+    public Duration interval() {
+        return heartbeatInterval;
+    }
+
+    // Deleting the dead nodes' rows comes last: it tells those nodes that their tasks are back in the queue
+    @Override
+    public void run() {
+        final List<UUID> dead = jdbcTemplate.queryForList(SELECT_DEAD_NODES, UUID.class, (double) lease.toSeconds());
+        final boolean fullReclaimDue = Instant.now().isAfter(lastFullReclaim.plus(fullReclaimInterval));
+        if (dead.isEmpty() && !fullReclaimDue) {
+            return;
+        }
+        if (!dead.isEmpty()) {
+            deadNodes.add(dead.size());
+            log.warn("Task runner nodes {} stopped renewing their lease, reclaiming their tasks", dead);
+        }
+        lastFullReclaim = Instant.now();
+        taskRunner.getObject().retrieveStalledTasks(Instant.now().minus(lease));
+        reclaims.increment();
+        if (!dead.isEmpty()) {
+            final UUID[] deadIds = dead.toArray(UUID[]::new);
+            jdbcTemplate.update(
+                    REMOVE_DEAD_NODES, ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", deadIds)));
+        }
+    }
+
+    Stats stats() {
+        return new Stats(
+                inFlightTasks.get(),
+                heartbeats.sum(),
+                reclaims.sum(),
+                deadNodes.sum(),
+                leaseLosses.sum(),
+                fencedClaims.sum());
+    }
+
+    private void renewed(long startedAt) {
+        renewedAt = startedAt;
+        awaitingReclaim = false;
+        heartbeats.increment();
+    }
+
+    private boolean nodeRowExists() {
+        return Boolean.TRUE.equals(heartbeatJdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM task_runner_node WHERE node_id = ?)", Boolean.class, nodeId));
+    }
+
+    private boolean leaseLost() {
+        final long renewed = renewedAt;
+        return renewed != 0 && System.nanoTime() - renewed > lease.toNanos();
+    }
+
+    private Duration remainingLease() {
+        final long renewed = renewedAt;
+        return renewed == 0 ? lease : lease.minusNanos(System.nanoTime() - renewed);
+    }
+
+    record Stats(
+            int inFlightTasks, long heartbeats, long reclaims, long deadNodes, long leaseLosses, long fencedClaims) {}
+}
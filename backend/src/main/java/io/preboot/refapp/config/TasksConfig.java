@@ -1,5 +1,8 @@
 package io.preboot.refapp.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.observation.ObservationRegistry;
 import io.preboot.eventbus.EventPublisher;
 import io.preboot.eventbus.tasks.ExpandingTimeOfBackOffPolicy;
 import io.preboot.eventbus.tasks.TaskConfigFactory;
@@ -8,25 +11,40 @@ import io.preboot.eventbus.tasks.TaskRepository;
 import io.preboot.eventbus.tasks.TaskRunner;
 import io.preboot.eventbus.tasks.TimeBasedDeadQueuePolicy;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.concurrent.Semaphore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Configuration
 @EnableScheduling
+@EnableConfigurationProperties({TaskLaneProperties.class, FairTaskProperties.class})
 class TasksConfig {
+    static final String TASKS_TABLE = "tasks";
+    static final String TASK_PUBLISHED_CHANNEL = "task_published";
+    // longest delay between two attempts of a failing task
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(60 * 24);
+
     @Bean
     TaskRepository taskRepository(TaskConfigFactory taskConfigFactory) {
-        return taskConfigFactory.createTaskRepository("tasks");
+        return taskConfigFactory.createTaskRepository(TASKS_TABLE);
     }
 
     @Bean
@@ -34,31 +52,182 @@ class TasksConfig {
         return taskConfigFactory.createTaskPublisher(taskRepository);
     }
 
+    // Lanes sit in front of the completion tracking: a task deferred by its lane has not completed. Tenant tasks are
+    // unwrapped by the completion tracking, so the observation times them by their own type.
+    @Bean
+    TaskLanes taskLanes(
+            EventPublisher synchEventPublisher,
+            FairTaskScheduler fairTaskScheduler,
+            JobScheduler jobScheduler,
+            TaskLaneProperties taskLaneProperties,
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        // tasks.run times every task handler by type, failures carry the error tag
+        return new TaskLanes(
+                fairTaskScheduler.completionTracking(new ObservedEventPublisher(
+                        synchEventPublisher,
+                        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
+                        "tasks.run")),
+                jobScheduler,
+                taskLaneProperties.lanes());
+    }
+
+    @Bean
+    FairTaskScheduler fairTaskScheduler(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            TaskPublisher taskPublisher,
+            ClusterLock clusterLock,
+            FairTaskProperties fairTaskProperties) {
+        return new FairTaskScheduler(
+                jdbcTemplate, transactionTemplate, objectMapper, taskPublisher, clusterLock, fairTaskProperties);
+    }
+
+    @Bean
+    JobScheduler jobScheduler(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            TaskPublisher taskPublisher,
+            ObjectProvider<RecurringJob> recurringJobs,
+            @Value("${app.scheduler.tick:50ms}") Duration tick,
+            @Value("${app.scheduler.wheel-size:64}") int wheelSize,
+            @Value("${app.scheduler.levels:4}") int levels,
+            @Value("${app.scheduler.load-window:1m}") Duration loadWindow,
+            @Value("${app.scheduler.load-batch-size:10000}") int loadBatchSize,
+            @Value("${app.scheduler.max-concurrent-firings:16}") int maxConcurrentFirings) {
+        return new JobScheduler(
+                jdbcTemplate,
+                transactionTemplate,
+                objectMapper,
+                taskPublisher,
+                recurringJobs,
+                tick,
+                wheelSize,
+                levels,
+                loadWindow,
+                loadBatchSize,
+                maxConcurrentFirings);
+    }
+
+    // The lease renewal gets a single connection of its own that gives up after one heartbeat interval, well within
+    // the lease. It is not a DataSource bean, which would replace the auto-configured pool.
+    @Bean
+    TaskLeases taskLeases(
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            ObjectProvider<TaskRunner> taskRunner,
+            @Value("${app.task-runner.lease.heartbeat-interval:5s}") Duration heartbeatInterval,
+            @Value("${app.task-runner.lease.duration:30s}") Duration lease,
+            @Value("${app.task-runner.lease.full-reclaim-interval:15m}") Duration fullReclaimInterval) {
+        final HikariDataSource heartbeatDataSource = dataSourceProperties
+                .initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        heartbeatDataSource.setPoolName("task-lease");
+        heartbeatDataSource.setMaximumPoolSize(1);
+        heartbeatDataSource.setMinimumIdle(1);
+        heartbeatDataSource.setConnectionTimeout(Math.max(250, heartbeatInterval.toMillis()));
+        return new TaskLeases(
+                jdbcTemplate, heartbeatDataSource, taskRunner, heartbeatInterval, lease, fullReclaimInterval);
+    }
+
     @Bean
     TaskRunner taskRunner(
-            TaskConfigFactory taskConfigFactory, EventPublisher synchEventPublisher, TaskRepository taskRepository) {
+            TaskConfigFactory taskConfigFactory,
+            TaskLanes taskLanes,
+            TaskLeases taskLeases,
+            TaskRepository taskRepository,
+            @Value("${app.task-runner.dead-queue-after:15d}") Duration deadQueueAfter) {
         return taskConfigFactory.createTaskRunner(
-                synchEventPublisher,
+                taskLeases.tracking(taskLanes),
                 taskRepository,
-                new TimeBasedDeadQueuePolicy(Duration.ofDays(15)),
-                new ExpandingTimeOfBackOffPolicy(Duration.ofMinutes(2), 60, 2, 60 * 24));
+                new TimeBasedDeadQueuePolicy(deadQueueAfter),
+                new ExpandingTimeOfBackOffPolicy(Duration.ofMinutes(2), 60, 2, (int) MAX_RETRY_DELAY.toMinutes()));
     }
 
-    @Service
+    @Bean
+    @ConditionalOnProperty(name = "app.task-runner.mode", havingValue = "dispatcher")
+    TaskDispatcher taskDispatcher(
+            TaskRunner taskRunner,
+            TaskLeases taskLeases,
+            PostgresNotificationListener notificationListener,
+            @Value("${app.task-runner.max-concurrent-tasks}") int maxConcurrentTasks,
+            @Value("${app.task-runner.dispatcher.claim-batch-size:20}") int claimBatchSize,
+            @Value("${app.task-runner.dispatcher.min-idle-backoff:50ms}") Duration minIdleBackoff,
+            @Value("${app.task-runner.dispatcher.max-idle-backoff:5s}") Duration maxIdleBackoff) {
+        final TaskDispatcher taskDispatcher = new TaskDispatcher(
+                taskRunner,
+                taskLeases::mayClaimTasks,
+                maxConcurrentTasks,
+                claimBatchSize,
+                minIdleBackoff,
+                maxIdleBackoff);
+        notificationListener.subscribe(TASK_PUBLISHED_CHANNEL, payload -> taskDispatcher.wakeUp());
+        return taskDispatcher;
+    }
+
+    // Installs a statement-level trigger that NOTIFYs every node as soon as tasks are inserted. The tasks table is
+    // created by preboot-eventbus-tasks itself, so this runs once the application is up instead of in Liquibase.
+    @Component
+    @ConditionalOnProperty(name = "app.task-runner.mode", havingValue = "dispatcher")
     @RequiredArgsConstructor
     @Slf4j
-    static class TaskRunnerJob {
-        @Value("${app.task-runner.max-concurrent-tasks}")
-        private int maxConcurrentTasks;
+    static class TaskPublishedTrigger {
+        private final JdbcTemplate jdbcTemplate;
+
+        @EventListener(ApplicationReadyEvent.class)
+        void install() {
+            try {
+                jdbcTemplate.execute(
+                        """
+                        CREATE OR REPLACE FUNCTION refapp_notify_task_published() RETURNS trigger AS $$
+                        BEGIN
+                            PERFORM pg_notify('%s', TG_TABLE_NAME);
+                            RETURN NULL;
+                        END;
+                        $$ LANGUAGE plpgsql
+                        """.formatted(TASK_PUBLISHED_CHANNEL));
+                jdbcTemplate.execute(
+                        """
+                        CREATE OR REPLACE TRIGGER refapp_task_published AFTER INSERT ON %s
+                        FOR EACH STATEMENT EXECUTE FUNCTION refapp_notify_task_published()
+                        """.formatted(TASKS_TABLE));
+            } catch (DataAccessException e) {
+                log.warn("Could not install task notification trigger, dispatcher falls back to idle polling", e);
+            }
+        }
+    }
 
+    @Service
+    @Slf4j
+    @ConditionalOnProperty(name = "app.task-runner.mode", havingValue = "polling", matchIfMissing = true)
+    static class TaskRunnerJob {
+        private final int maxConcurrentTasks;
         private final TaskRunner taskRunner;
+        private final TaskLeases taskLeases;
         private final TaskExecutor taskExecutor = new VirtualThreadTaskExecutor("task-runner");
-        private final Semaphore semaphore = new Semaphore(maxConcurrentTasks);
+        private final Semaphore semaphore;
+
+        // the semaphore must be sized from the injected value, a field initializer would run before injection
+        TaskRunnerJob(
+                TaskRunner taskRunner,
+                TaskLeases taskLeases,
+                @Value("${app.task-runner.max-concurrent-tasks}") int maxConcurrentTasks) {
+            this.taskRunner = taskRunner;
+            this.taskLeases = taskLeases;
+            this.maxConcurrentTasks = maxConcurrentTasks;
+            this.semaphore = new Semaphore(maxConcurrentTasks);
+        }
 
         @Scheduled(fixedRate = 1000)
         void run() {
             // Try to schedule as many tasks as possible
             for (int i = 0; i < maxConcurrentTasks; i++) {
+                if (!taskLeases.mayClaimTasks()) {
+                    log.debug("Task lease not held, claiming no tasks");
+                    break;
+                }
                 if (!taskRunner.hasPendingTasks()) {
                     log.debug("No more pending tasks, exiting the loop at iteration {}", i);
                     break; // Exit the loop if no more pending tasks
@@ -80,15 +249,5 @@ class TasksConfig {
                 }
             }
         }
-
-        @Scheduled(fixedRate = 180000) // 3 minutes
-        void updateHeartbeat() {
-            taskRunner.updateHeartbeat();
-        }
-
-        @Scheduled(fixedRate = 900000) // 15 minutes
-        void retrieveStalledTasks() {
-            taskRunner.retrieveStalledTasks(Instant.now().minus(Duration.ofMinutes(15)));
-        }
     }
 }
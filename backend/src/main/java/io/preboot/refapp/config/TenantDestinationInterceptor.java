@@ -0,0 +1,54 @@
+package io.preboot.refapp.config;
+
+import io.preboot.auth.api.dto.UserAccountInfo;
+import java.security.Principal;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+
+// Rejects subscriptions outside the caller's tenant, and client messages to anything but the application, before they
+// reach the broker
+@Slf4j
+class TenantDestinationInterceptor implements ChannelInterceptor {
+    private final Set<String> publicTopics;
+
+    TenantDestinationInterceptor(Set<String> publicTopics) {
+        this.publicTopics = Set.copyOf(publicTopics);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        final StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        final SimpMessageType messageType = accessor.getMessageType();
+        if (messageType == SimpMessageType.SUBSCRIBE
+                && !TenantDestinations.maySubscribe(
+                        accessor.getDestination(), tenantOf(accessor.getUser()), publicTopics)) {
+            log.warn("Rejected subscription to {} for session {}", accessor.getDestination(), accessor.getSessionId());
+            throw new AccessDeniedException("Subscription to " + accessor.getDestination() + " is not allowed");
+        }
+        if (messageType == SimpMessageType.MESSAGE && !TenantDestinations.maySend(accessor.getDestination())) {
+            log.warn("Rejected message to {} from session {}", accessor.getDestination(), accessor.getSessionId());
+            throw new AccessDeniedException("Sending to " + accessor.getDestination() + " is not allowed");
+        }
+        return message;
+    }
+
+    private UUID tenantOf(Principal user) {
+        if (user instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof UserAccountInfo userAccountInfo) {
+            return userAccountInfo.tenantId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package io.preboot.refapp.config;
+
+import java.util.Set;
+import java.util.UUID;
+
+// Tenant scoped broadcast destinations have the form /topic/tenant.{tenantId}.{name}. The dot separated form maps to a
+// routing key on external brokers, so every tenant gets its own shard, and only members of the tenant may subscribe.
+public final class TenantDestinations {
+    static final String PREFIX = "/topic/tenant.";
+    private static final String TOPIC_PREFIX = "/topic/";
+    private static final String USER_PREFIX = "/user/";
+    private static final String APP_PREFIX = "/app/";
+
+    private TenantDestinations() {}
+
+    public static String topic(UUID tenantId, String name) {
+        return PREFIX + tenantId + "." + name;
+    }
+
+    // Deny by default: a subscription is allowed to the caller's own tenant destinations, the configured public topics
+    // and the caller's /user destinations, nothing else. Wildcards are rejected everywhere, on a relay /topic/# or
+    // /topic/*.*.* would match the routing keys of every tenant; so are the broker's system destinations.
+    static boolean maySubscribe(String destination, UUID tenantId, Set<String> publicTopics) {
+        if (destination == null || destination.indexOf('*') >= 0 || destination.indexOf('#') >= 0) {
+            return false;
+        }
+        if (destination.startsWith(USER_PREFIX)) {
+            return destination.length() > USER_PREFIX.length(); // resolved to the caller's own sessions
+        }
+        if (destination.startsWith(PREFIX)) {
+            return tenantId != null && isOwnTenantTopic(destination, tenantId);
+        }
+        return destination.startsWith(TOPIC_PREFIX)
+                && publicTopics.contains(destination.substring(TOPIC_PREFIX.length()));
+    }
+
+    // Clients only send to the application; sending to broker destinations would reach other tenants' subscribers
+    static boolean maySend(String destination) {
+        return destination != null && destination.startsWith(APP_PREFIX);
+    }
+
+    private static boolean isOwnTenantTopic(String destination, UUID tenantId) {
+        final String tenantPrefix = PREFIX + tenantId + ".";
+        return destination.startsWith(tenantPrefix) && destination.length() > tenantPrefix.length();
+    }
+}
@@ -0,0 +1,9 @@
+package io.preboot.refapp.config;
+
+import java.util.UUID;
+
+// Task payload owned by a tenant. Submitted through FairTaskScheduler, such tasks are released into the task queue
+// fairly between tenants instead of in plain FIFO order.
+public interface TenantTask {
+    UUID tenantId();
+}
@@ -1,19 +1,46 @@
 package io.preboot.refapp.config;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@EnableConfigurationProperties(WebSocketProperties.class)
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    // /topic for broadcasts, /queue for the per session destinations /user/queue/... resolves to
+    private static final String[] BROKER_PREFIXES = {"/topic", "/queue"};
+
+    private final WebSocketProperties properties;
+    private final WebSocketMetrics metrics;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Configure destinations for broadcasting messages TO clients
-        config.enableSimpleBroker("/topic");
+        if (properties.broker() == WebSocketProperties.BrokerMode.RELAY) {
+            final WebSocketProperties.Relay relay = properties.relay();
+            config.enableStompBrokerRelay(BROKER_PREFIXES)
+                    .setRelayHost(relay.host())
+                    .setRelayPort(relay.port())
+                    .setClientLogin(relay.login())
+                    .setClientPasscode(relay.passcode())
+                    .setSystemLogin(relay.login())
+                    .setSystemPasscode(relay.passcode())
+                    .setVirtualHost(relay.virtualHost())
+                    // let user destinations reach sessions connected to other nodes
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            config.enableSimpleBroker(BROKER_PREFIXES);
+        }
 
         // Prefix for messages FROM clients TO application
         config.setApplicationDestinationPrefixes("/app");
@@ -28,4 +55,36 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins("*") // your frontend origin
                 .withSockJS(); // fallback options for browsers that don't support WebSocket
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(
+                new TenantDestinationInterceptor(properties.publicTopics()), metrics.inboundInterceptor());
+        registration.taskExecutor(channelExecutor("ws-inbound-"));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(metrics.outboundInterceptor());
+        registration.taskExecutor(channelExecutor("ws-outbound-"));
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // a slow consumer gets disconnected instead of buffering without bounds and stalling the broker
+        registration
+                .setSendTimeLimit((int) properties.sendTimeLimit().toMillis())
+                .setSendBufferSizeLimit((int) properties.sendBufferSizeLimit().toBytes())
+                .setMessageSizeLimit((int) properties.messageSizeLimit().toBytes());
+    }
+
+    private ThreadPoolTaskExecutor channelExecutor(String threadNamePrefix) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setCorePoolSize(properties.channelConcurrency());
+        executor.setMaxPoolSize(properties.channelConcurrency());
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
 }
@@ -0,0 +1,66 @@
+package io.preboot.refapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+// Open STOMP sessions and message counters per channel direction; rates are derived by the metrics backend
+@Component
+class WebSocketMetrics {
+    // by session id, so a disconnect without a connect (or reported twice) doesn't change the count
+    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+    private final Counter connects;
+    private final Counter inboundMessages;
+    private final Counter outboundMessages;
+
+    WebSocketMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("websocket.sessions", sessions, Set::size).register(meterRegistry);
+        this.connects = Counter.builder("websocket.connects").register(meterRegistry);
+        this.inboundMessages =
+                Counter.builder("websocket.messages").tag("direction", "inbound").register(meterRegistry);
+        this.outboundMessages =
+                Counter.builder("websocket.messages").tag("direction", "outbound").register(meterRegistry);
+    }
+
+    ChannelInterceptor inboundInterceptor() {
+        return countingInterceptor(inboundMessages);
+    }
+
+    ChannelInterceptor outboundInterceptor() {
+        return countingInterceptor(outboundMessages);
+    }
+
+    @EventListener
+    void onConnected(SessionConnectedEvent event) {
+        final String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null) {
+            sessions.add(sessionId);
+        }
+        connects.increment();
+    }
+
+    @EventListener
+    void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    private static ChannelInterceptor countingInterceptor(Counter counter) {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                counter.increment();
+                return message;
+            }
+        };
+    }
+}
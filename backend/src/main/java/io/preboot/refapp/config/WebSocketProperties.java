@@ -0,0 +1,34 @@
+package io.preboot.refapp.config;
+
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties("app.websocket")
+record WebSocketProperties(
+        @DefaultValue("simple") BrokerMode broker,
+        @DefaultValue Relay relay,
+        @DefaultValue("32") int channelConcurrency,
+        @DefaultValue("10s") Duration sendTimeLimit,
+        @DefaultValue("512KB") DataSize sendBufferSizeLimit,
+        @DefaultValue("64KB") DataSize messageSizeLimit,
+        Set<String> publicTopics) {
+
+    WebSocketProperties {
+        publicTopics = publicTopics == null ? Set.of() : Set.copyOf(publicTopics);
+    }
+
+    enum BrokerMode {
+        SIMPLE, // in-process broker, single node only (default, used by tests)
+        RELAY // external STOMP broker (RabbitMQ, ActiveMQ Artemis), required with more than one node
+    }
+
+    record Relay(
+            @DefaultValue("localhost") String host,
+            @DefaultValue("61613") int port,
+            @DefaultValue("guest") String login,
+            @DefaultValue("guest") String passcode,
+            @DefaultValue("/") String virtualHost) {}
+}
@@ -0,0 +1,304 @@
+package io.preboot.refapp.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+// Coalescing push API for high-frequency server events. Updates are collected per destination (or user session) and
+// key for one window, then sent as a single batch frame. Frames to /user destinations are sent per session and limited
+// to a number of frames per second per session.
+//
+// An entity that was pushed recently is sent as a delta of the fields that changed. Every update carries a version and
+// every delta the version it is based on, so a client only merges a delta into the state it actually holds. Deltas are
+// never sent against a base a new subscriber has not seen: a subscription on any node resets the bases of its
+// destination (or session) on all nodes through NOTIFY, and the next update of each key goes out in full.
+@Service
+@Slf4j
+public class WebSocketPushService implements SmartLifecycle {
+    static final String RESYNC_CHANNEL = "push_resync";
+    private static final String USER_DESTINATION_PREFIX = "/user";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration window;
+    private final long minSessionFrameIntervalNanos;
+    private final Map<Target, Map<String, Object>> pending = new ConcurrentHashMap<>();
+    private final Map<String, Long> nextSessionFrameAt = new ConcurrentHashMap<>();
+    private final Cache<SentKey, SentState> lastSent;
+    // Resetting a target's bases moves it to a new generation, entries of older generations are never read again.
+    // A generation is accessed whenever a base of its target is written, so it outlives all of them.
+    private final Cache<Target, Long> generations;
+    private final AtomicLong nextGeneration = new AtomicLong();
+    private final String versionPrefix = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36) + ".";
+    private final AtomicLong nextVersion = new AtomicLong();
+    private final LongAdder pushedUpdates = new LongAdder();
+    private final LongAdder sentFrames = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    WebSocketPushService(
+            SimpMessageSendingOperations messagingTemplate,
+            SimpUserRegistry userRegistry,
+            JdbcTemplate jdbcTemplate,
+            PostgresNotificationListener notificationListener,
+            ObjectMapper objectMapper,
+            @Value("${app.websocket.push.window:50ms}") Duration window,
+            @Value("${app.websocket.push.max-session-frames-per-second:10}") int maxSessionFramesPerSecond,
+            @Value("${app.websocket.push.delta-base-ttl:5m}") Duration deltaBaseTtl) {
+        this.messagingTemplate = messagingTemplate;
+        this.userRegistry = userRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.window = window;
+        this.minSessionFrameIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxSessionFramesPerSecond);
+        // entries expire so every entity is periodically sent in full again
+        this.lastSent = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(deltaBaseTtl)
+                .build();
+        this.generations = Caffeine.newBuilder().expireAfterAccess(deltaBaseTtl).build();
+        notificationListener.subscribe(RESYNC_CHANNEL, this::onResync);
+    }
+
+    public void push(String destination, String key, Object payload) {
+        enqueue(new Target(destination, null, null), key, payload);
+    }
+
+    // Queued for every session the user has open right now, on any node
+    public void pushToUser(String user, String destination, String key, Object payload) {
+        final SimpUser simpUser = userRegistry.getUser(Objects.requireNonNull(user, "user"));
+        if (simpUser == null) {
+            return; // not connected, nobody to send to
+        }
+        for (SimpSession session : simpUser.getSessions()) {
+            enqueue(new Target(destination, user, session.getId()), key, payload);
+        }
+    }
+
+    public void push(PushEvent event) {
+        if (event.user() == null) {
+            push(event.destination(), event.key(), event.payload());
+        } else {
+            pushToUser(event.user(), event.destination(), event.key(), event.payload());
+        }
+    }
+
+    Stats stats() {
+        return new Stats(pushedUpdates.sum(), sentFrames.sum(), pending.size());
+    }
+
+    // Sends everything collected so far, called every push window
+    void flush() {
+        final long now = System.nanoTime();
+        for (Target target : pending.keySet()) {
+            if (target.sessionId() != null
+                    && now < nextSessionFrameAt.getOrDefault(target.sessionId(), Long.MIN_VALUE)) {
+                continue; // rate limited, keep coalescing until the session may receive the next frame
+            }
+            final Map<String, Object> updates = pending.remove(target);
+            if (updates == null || updates.isEmpty()) {
+                continue;
+            }
+            try {
+                send(target, updates);
+                if (target.sessionId() != null) {
+                    nextSessionFrameAt.put(target.sessionId(), now + minSessionFrameIntervalNanos);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to push {} updates to {}", updates.size(), target, e);
+            }
+        }
+    }
+
+    // A new subscriber holds none of the bases of its destination, so they are reset on every node
+    @EventListener
+    void onSubscribe(SessionSubscribeEvent event) {
+        final StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        final String destination = accessor.getDestination();
+        if (destination == null) {
+            return;
+        }
+        final Target target = destination.startsWith(USER_DESTINATION_PREFIX + "/") && accessor.getUser() != null
+                ? new Target(
+                        destination.substring(USER_DESTINATION_PREFIX.length()),
+                        accessor.getUser().getName(),
+                        accessor.getSessionId())
+                : new Target(destination, null, null);
+        resetBases(target); // no need to wait for the round trip on this node
+        jdbcTemplate.query(
+                "SELECT pg_notify(?, ?)",
+                (ResultSetExtractor<Void>) resultSet -> null,
+                RESYNC_CHANNEL,
+                String.join("\n", target.destination(), nullToEmpty(target.user()), nullToEmpty(target.sessionId())));
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ws-push").daemon().factory());
+        scheduler.scheduleWithFixedDelay(
+                this::flushSafely, window.toNanos(), window.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+            flushSafely();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private void onResync(String payload) {
+        if (payload == null) {
+            lastSent.invalidateAll(); // (re)connected, subscriptions on other nodes may have been missed
+            return;
+        }
+        final String[] parts = payload.split("\n", -1);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed push resync: {}", payload);
+            return;
+        }
+        resetBases(new Target(parts[0], emptyToNull(parts[1]), emptyToNull(parts[2])));
+    }
+
+    private void resetBases(Target target) {
+        generations.put(target, nextGeneration.incrementAndGet());
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+            nextSessionFrameAt.values().removeIf(nextFrameAt -> nextFrameAt < System.nanoTime());
+        } catch (RuntimeException e) {
+            log.error("WebSocket push flush failed", e);
+        }
+    }
+
+    private void enqueue(Target target, String key, Object payload) {
+        // compute runs atomically for the target, so a concurrent flush never loses an update
+        pending.compute(target, (ignored, updates) -> {
+            final Map<String, Object> result = updates == null ? new LinkedHashMap<>() : updates;
+            result.remove(key); // re-insert so updates are sent in the order of their latest change
+            result.put(key, payload);
+            return result;
+        });
+        pushedUpdates.increment();
+    }
+
+    private void send(Target target, Map<String, Object> updates) {
+        final List<PushUpdate> batch = new ArrayList<>(updates.size());
+        updates.forEach((key, payload) -> batch.add(toUpdate(target, key, payload)));
+        if (target.sessionId() == null) {
+            messagingTemplate.convertAndSend(target.destination(), new PushBatch(batch));
+        } else {
+            // a session id header makes the user destination resolve to that one session
+            final SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setSessionId(target.sessionId());
+            headers.setLeaveMutable(true);
+            messagingTemplate.convertAndSendToUser(
+                    target.user(), target.destination(), new PushBatch(batch), headers.getMessageHeaders());
+        }
+        sentFrames.increment();
+    }
+
+    private PushUpdate toUpdate(Target target, String key, Object payload) {
+        final SentKey sentKey = new SentKey(target, generations.get(target, ignored -> 0L), key);
+        if (payload == null) {
+            lastSent.invalidate(sentKey);
+            return new PushUpdate(key, null, null, null, null, null, true);
+        }
+        final String version = versionPrefix + nextVersion.incrementAndGet();
+        final Object value = objectMapper.convertValue(payload, Object.class);
+        if (!(value instanceof Map<?, ?> map)) {
+            return new PushUpdate(key, version, null, value, null, null, null);
+        }
+        @SuppressWarnings("unchecked") // JSON objects are converted to maps with string keys
+        final Map<String, Object> fields = (Map<String, Object>) map;
+        final SentState previous = lastSent.getIfPresent(sentKey);
+        lastSent.put(sentKey, new SentState(version, fields));
+        if (previous == null) {
+            return new PushUpdate(key, version, null, fields, null, null, null);
+        }
+        final Map<String, Object> changed = new LinkedHashMap<>();
+        fields.forEach((field, fieldValue) -> {
+            if (!previous.fields().containsKey(field) || !Objects.equals(previous.fields().get(field), fieldValue)) {
+                changed.put(field, fieldValue);
+            }
+        });
+        final Set<String> removed = new HashSet<>(previous.fields().keySet());
+        removed.removeAll(fields.keySet());
+        return new PushUpdate(
+                key, version, previous.version(), null, changed, removed.isEmpty() ? null : removed, null);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    record Stats(long pushedUpdates, long sentFrames, int pendingTargets) {}
+
+    // A broadcast destination, or a /user destination of one session of a user
+    private record Target(String destination, String user, String sessionId) {}
+
+    private record SentKey(Target target, long generation, String key) {}
+
+    private record SentState(String version, Map<String, Object> fields) {}
+
+    // Frame sent to clients; clients apply full payloads as is and merge a delta only into the entity they hold at the
+    // delta's base version, a delta on any other base is dropped and the entity waits for its next full update
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record PushBatch(List<PushUpdate> updates) {}
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record PushUpdate(
+            String key,
+            String version,
+            String base,
+            Object full,
+            Map<String, Object> delta,
+            Set<String> removed,
+            Boolean deleted) {}
+}
@@ -0,0 +1,17 @@
+package io.preboot.refapp.exception;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Time-ordered error ids in the UUIDv7 layout (48 bit unix millis, 74 random bits). Unique enough to correlate a
+// response with its log line, without the SecureRandom contention UUID.randomUUID() shows under an error burst.
+final class ErrorIds {
+    private ErrorIds() {}
+
+    static UUID next() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long mostSigBits = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextInt() & 0x0FFFL);
+        final long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
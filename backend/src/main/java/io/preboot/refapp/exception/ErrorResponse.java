@@ -1,18 +1,25 @@
 package io.preboot.refapp.exception;
 
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 // Custom error response class
+@JsonSerialize(using = ErrorResponseSerializer.class)
 public class ErrorResponse {
     private final int status;
-    private final String error;
+    private final SerializedString error; // error labels are constants, encoded once and reused
     private final String message;
     private final String path;
     private final LocalDateTime timestamp;
-    private final UUID uuid = UUID.randomUUID();
+    private final UUID uuid = ErrorIds.next();
 
     public ErrorResponse(int status, String error, String message, String path) {
+        this(status, new SerializedString(error), message, path);
+    }
+
+    ErrorResponse(int status, SerializedString error, String message, String path) {
         this.status = status;
         this.error = error;
         this.message = message;
@@ -26,6 +33,10 @@ public class ErrorResponse {
     }
 
     public String getError() {
+        return error.getValue();
+    }
+
+    SerializedString getEncodedError() {
         return error;
     }
 
@@ -0,0 +1,54 @@
+package io.preboot.refapp.exception;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+// Writes ErrorResponse with pre-encoded field names and error labels instead of bean introspection. The JSON shape
+// is the one the default bean serializer produced; the timestamp still goes through the configured date handling.
+class ErrorResponseSerializer extends StdSerializer<ErrorResponse> {
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString ERROR = new SerializedString("error");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString PATH = new SerializedString("path");
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializedString UUID = new SerializedString("uuid");
+
+    ErrorResponseSerializer() {
+        super(ErrorResponse.class);
+    }
+
+    @Override
+    public void serialize(ErrorResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        final JsonInclude.Include inclusion =
+                provider.getConfig().getDefaultPropertyInclusion(ErrorResponse.class).getValueInclusion();
+        final boolean writeNulls =
+                inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+        gen.writeStartObject(value);
+        gen.writeFieldName(STATUS);
+        gen.writeNumber(value.getStatus());
+        gen.writeFieldName(ERROR);
+        gen.writeString(value.getEncodedError());
+        writeNullable(gen, MESSAGE, value.getMessage(), writeNulls);
+        writeNullable(gen, PATH, value.getPath(), writeNulls);
+        gen.writeFieldName(TIMESTAMP);
+        provider.defaultSerializeValue(value.getTimestamp(), gen);
+        gen.writeFieldName(UUID);
+        gen.writeString(value.getUuid().toString());
+        gen.writeEndObject();
+    }
+
+    private static void writeNullable(JsonGenerator gen, SerializedString name, String value, boolean writeNulls)
+            throws IOException {
+        if (value != null) {
+            gen.writeFieldName(name);
+            gen.writeString(value);
+        } else if (writeNulls) {
+            gen.writeFieldName(name);
+            gen.writeNull();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package io.preboot.refapp.exception;
 
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.time.Duration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
@@ -10,16 +13,25 @@ import org.springframework.web.context.request.WebRequest;
 @ControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
+    private static final SerializedString UNEXPECTED_ERROR = new SerializedString("An unexpected error occurred");
+    private static final SerializedString INVALID_REQUEST = new SerializedString("Invalid Request");
+    private static final SerializedString UNAUTHORIZED = new SerializedString("Unauthorized");
+    private static final SerializedString FORBIDDEN = new SerializedString("Forbidden");
+    private static final SerializedString TOO_MANY_REQUESTS = new SerializedString("Too Many Requests");
+    private static final SerializedString SERVICE_UNAVAILABLE = new SerializedString("Service Unavailable");
+
+    // 10 full stack traces per exception type every 10 s, then 1 in 100 without one
+    private final SampledErrorLog errorLog = new SampledErrorLog(log, Duration.ofSeconds(10), 10, 100);
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleAllExceptions(Exception ex, WebRequest request) {
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
-                "An unexpected error occurred",
+                UNEXPECTED_ERROR,
                 ex.getMessage(),
                 request.getDescription(false));
 
-        log.error("An unexpected error occurred with UUID=" + errorResponse.getUuid(), ex);
+        errorLog.error("An unexpected error occurred", errorResponse.getUuid(), ex);
         return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
@@ -27,7 +39,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(
             IllegalArgumentException ex, WebRequest request) {
         ErrorResponse errorResponse = new ErrorResponse(
-                HttpStatus.BAD_REQUEST.value(), "Invalid Request", ex.getMessage(), request.getDescription(false));
+                HttpStatus.BAD_REQUEST.value(), INVALID_REQUEST, ex.getMessage(), request.getDescription(false));
 
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
@@ -35,8 +47,40 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(SecurityException.class)
     public ResponseEntity<ErrorResponse> handleSecurityException(SecurityException ex, WebRequest request) {
         ErrorResponse errorResponse = new ErrorResponse(
-                HttpStatus.UNAUTHORIZED.value(), "Unauthorized", ex.getMessage(), request.getDescription(false));
+                HttpStatus.UNAUTHORIZED.value(), UNAUTHORIZED, ex.getMessage(), request.getDescription(false));
 
         return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
     }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ErrorResponse> handleAccessDeniedException(AccessDeniedException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.FORBIDDEN.value(), FORBIDDEN, ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(
+            TooManyRequestsException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                TOO_MANY_REQUESTS,
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(
+            ServiceUnavailableException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                SERVICE_UNAVAILABLE,
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
@@ -0,0 +1,67 @@
+package io.preboot.refapp.exception;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+
+// Keeps an incident from flooding the logs: per exception type only the first errors of a window are logged with a
+// stack trace, after that one in `sampleRate` is logged without it and the rest are only counted and reported when the
+// next window starts. Lock free, so a burst of failing requests doesn't serialize on the logger.
+class SampledErrorLog {
+    private final Logger log;
+    private final long windowNanos;
+    private final int maxFullPerWindow;
+    private final int sampleRate;
+    private final ConcurrentHashMap<Class<?>, Window> windows = new ConcurrentHashMap<>();
+
+    SampledErrorLog(Logger log, Duration window, int maxFullPerWindow, int sampleRate) {
+        this.log = log;
+        this.windowNanos = window.toNanos();
+        this.maxFullPerWindow = maxFullPerWindow;
+        this.sampleRate = sampleRate;
+    }
+
+    void error(String message, UUID errorId, Exception ex) {
+        final Window window = windows.computeIfAbsent(ex.getClass(), type -> new Window(System.nanoTime()));
+        final int occurrence = window.next(ex.getClass());
+        if (occurrence <= maxFullPerWindow) {
+            log.error("{} with UUID={}", message, errorId, ex);
+        } else if ((occurrence - maxFullPerWindow) % sampleRate == 0) {
+            log.error(
+                    "{} with UUID={} (sampled, error {} of its type in this window): {}",
+                    message,
+                    errorId,
+                    occurrence,
+                    ex.toString());
+        }
+    }
+
+    private class Window {
+        private final AtomicLong startedAt;
+        private final AtomicInteger count = new AtomicInteger();
+
+        Window(long startedAt) {
+            this.startedAt = new AtomicLong(startedAt);
+        }
+
+        int next(Class<?> type) {
+            final long now = System.nanoTime();
+            final long start = startedAt.get();
+            if (now - start >= windowNanos && startedAt.compareAndSet(start, now)) {
+                final int previous = count.getAndSet(0);
+                if (previous > maxFullPerWindow) {
+                    log.warn(
+                            "{} errors of type {} in the last {} s, {} were logged",
+                            previous,
+                            type.getName(),
+                            Duration.ofNanos(now - start).toSeconds(),
+                            maxFullPerWindow + (previous - maxFullPerWindow) / sampleRate);
+                }
+            }
+            return count.incrementAndGet();
+        }
+    }
+}
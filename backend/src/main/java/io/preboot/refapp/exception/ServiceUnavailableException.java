@@ -0,0 +1,8 @@
+package io.preboot.refapp.exception;
+
+// Rejects a request because the node is overloaded and sheds load, mapped to 503
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message, null, false, false); // thrown on purpose under load, a stack trace would only add cost
+    }
+}
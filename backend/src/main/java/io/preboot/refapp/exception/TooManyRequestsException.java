@@ -0,0 +1,8 @@
+package io.preboot.refapp.exception;
+
+// Rejects a request because the caller exceeded a quota or rate limit, mapped to 429
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
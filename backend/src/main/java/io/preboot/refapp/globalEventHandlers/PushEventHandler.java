@@ -0,0 +1,18 @@
+package io.preboot.refapp.globalEventHandlers;
+
+import io.preboot.eventbus.EventHandler;
+import io.preboot.refapp.config.PushEvent;
+import io.preboot.refapp.config.WebSocketPushService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class PushEventHandler {
+    private final WebSocketPushService webSocketPushService;
+
+    @EventHandler
+    public void onPushEvent(PushEvent event) {
+        webSocketPushService.push(event);
+    }
+}
@@ -0,0 +1,150 @@
+package io.preboot.refapp.query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Describes how rows of type T are written to a tenant table by the BulkWriter. The tenant column is always filled
+// from the caller's security context and can't be mapped, the id is assigned by the application (e.g. a UUID) and the
+// version column follows Spring Data's @Version: inserted as given (0 when null), incremented by every update.
+public final class BulkTable<T> {
+    private static final Pattern COLUMN = Pattern.compile("[a-z_][a-z0-9_]*");
+    static final String TENANT_PARAMETER = "bulkTenantId";
+    static final String ROWS_PARAMETER = "bulkRows";
+
+    private final String idColumn;
+    private final Class<?> idType;
+    private final Function<T, ?> id;
+    private final String versionColumn;
+    private final Function<T, ? extends Number> version;
+    private final Map<String, Function<T, ?>> columns;
+    private final String insertSql;
+    private final String updateSql;
+
+    private BulkTable(Builder<T> builder) {
+        if (builder.idColumn == null || builder.versionColumn == null || builder.columns.isEmpty()) {
+            throw new IllegalArgumentException("Bulk table " + builder.table + " needs an id, a version and columns");
+        }
+        this.idColumn = builder.idColumn;
+        this.idType = builder.idType;
+        this.id = builder.id;
+        this.versionColumn = builder.versionColumn;
+        this.version = builder.version;
+        this.columns = new LinkedHashMap<>(builder.columns);
+        this.insertSql = insertSql(builder.table, builder.tenantColumn);
+        this.updateSql = updateSql(builder.table, builder.tenantColumn);
+    }
+
+    public static <T> Builder<T> builder(String table, String tenantColumn) {
+        return new Builder<>(table, tenantColumn);
+    }
+
+    String insertSql() {
+        return insertSql;
+    }
+
+    String updateSql() {
+        return updateSql;
+    }
+
+    // the Java type the id column is read back as, so returned ids compare equal to the ids of the rows
+    Class<?> idType() {
+        return idType;
+    }
+
+    Object id(T row) {
+        return id.apply(row);
+    }
+
+    // id, version and the mapped columns of one row, by column name
+    Map<String, Object> values(T row) {
+        final Map<String, Object> values = new LinkedHashMap<>(columns.size() + 2);
+        values.put(idColumn, id.apply(row));
+        final Number rowVersion = version.apply(row);
+        values.put(versionColumn, rowVersion == null ? 0L : rowVersion.longValue());
+        columns.forEach((column, value) -> values.put(column, value.apply(row)));
+        return values;
+    }
+
+    private String insertSql(String table, String tenantColumn) {
+        final List<String> names = new ArrayList<>();
+        names.add(idColumn);
+        names.add(versionColumn);
+        names.addAll(columns.keySet());
+        return "INSERT INTO " + table + " (" + tenantColumn + ", " + String.join(", ", names) + ") VALUES (:"
+                + TENANT_PARAMETER + ", " + names.stream().map(name -> ":" + name).collect(Collectors.joining(", "))
+                + ")";
+    }
+
+    // All rows in one statement: the JSON array is turned into rows typed like the table itself, so values need no
+    // casts, and only rows of the caller's tenant still at the expected version are updated and returned
+    private String updateSql(String table, String tenantColumn) {
+        final String assignments = columns.keySet().stream()
+                .map(column -> column + " = changed." + column)
+                .collect(Collectors.joining(", "));
+        return "UPDATE " + table + " AS target SET " + assignments + ", " + versionColumn + " = target." + versionColumn
+                + " + 1 FROM jsonb_populate_recordset(NULL::" + table + ", CAST(:" + ROWS_PARAMETER + " AS jsonb))"
+                + " AS changed WHERE target." + idColumn + " = changed." + idColumn + " AND target." + versionColumn
+                + " = changed." + versionColumn + " AND target." + tenantColumn + " = :" + TENANT_PARAMETER
+                + " RETURNING target." + idColumn;
+    }
+
+    public static final class Builder<T> {
+        private final String table;
+        private final String tenantColumn;
+        private final Map<String, Function<T, ?>> columns = new LinkedHashMap<>();
+        private String idColumn;
+        private Class<?> idType;
+        private Function<T, ?> id;
+        private String versionColumn;
+        private Function<T, ? extends Number> version;
+
+        private Builder(String table, String tenantColumn) {
+            this.table = requireColumn(table);
+            this.tenantColumn = requireColumn(tenantColumn);
+        }
+
+        public <I> Builder<T> id(String column, Class<I> type, Function<T, ? extends I> value) {
+            this.idColumn = requireMappable(column);
+            this.idType = type;
+            this.id = value;
+            return this;
+        }
+
+        public Builder<T> version(String column, Function<T, ? extends Number> value) {
+            this.versionColumn = requireMappable(column);
+            this.version = value;
+            return this;
+        }
+
+        public Builder<T> column(String column, Function<T, ?> value) {
+            columns.put(requireMappable(column), value);
+            return this;
+        }
+
+        public BulkTable<T> build() {
+            return new BulkTable<>(this);
+        }
+
+        private String requireMappable(String column) {
+            if (requireColumn(column).equals(tenantColumn)) {
+                throw new IllegalArgumentException("The tenant column is set from the security context");
+            }
+            if (column.equals(idColumn) || column.equals(versionColumn) || columns.containsKey(column)) {
+                throw new IllegalArgumentException("Column mapped twice: " + column);
+            }
+            return column;
+        }
+
+        private static String requireColumn(String column) {
+            if (!COLUMN.matcher(column).matches()) {
+                throw new IllegalArgumentException("Invalid column name: " + column);
+            }
+            return column;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package io.preboot.refapp.query;
+
+import java.util.List;
+
+// conflicts holds the ids of rows that were changed concurrently (stale version) or don't exist in the caller's tenant
+public record BulkUpdateResult(int updated, List<Object> conflicts) {}
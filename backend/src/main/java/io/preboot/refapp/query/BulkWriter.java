@@ -0,0 +1,132 @@
+package io.preboot.refapp.query;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.preboot.securedata.context.SecurityContextProvider;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Writes many rows of a tenant table at once, for imports and mass edits where saving entities one by one through
+// SecureRepository costs a round trip (and a version check) per row. The tenant is resolved once per call and applied
+// to every row. Inserts go out as JDBC batches, which the driver rewrites into multi-row INSERTs
+// (reWriteBatchedInserts); updates go out as one statement per batch that still checks every row's version. A call is
+// one transaction, joining the caller's if there is one.
+@Component
+public class BulkWriter {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SecurityContextProvider securityContextProvider;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public BulkWriter(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            SecurityContextProvider securityContextProvider,
+            ObjectMapper objectMapper,
+            @Value("${app.query.bulk.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Bulk batch size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.securityContextProvider = securityContextProvider;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    // Returns the number of inserted rows; a duplicate id fails the whole call
+    public <T> int insert(BulkTable<T> table, List<T> rows) {
+        final UUID tenantId = TenantScope.currentTenantId(securityContextProvider);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                final List<T> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                final SqlParameterSource[] parameters = new SqlParameterSource[batch.size()];
+                for (int i = 0; i < batch.size(); i++) {
+                    final MapSqlParameterSource rowParameters =
+                            new MapSqlParameterSource(BulkTable.TENANT_PARAMETER, tenantId);
+                    table.values(batch.get(i))
+                            .forEach((column, value) -> rowParameters.addValue(column, jdbcValue(value)));
+                    parameters[i] = rowParameters;
+                }
+                jdbcTemplate.batchUpdate(table.insertSql(), parameters);
+            }
+        });
+        return rows.size();
+    }
+
+    // Rows whose version no longer matches, or that don't exist in the caller's tenant, are left alone and reported
+    // as conflicts; all other rows are updated and get version + 1
+    public <T> BulkUpdateResult update(BulkTable<T> table, List<T> rows) {
+        final UUID tenantId = TenantScope.currentTenantId(securityContextProvider);
+        final Set<Object> updatedIds = new HashSet<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                final List<T> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                final MapSqlParameterSource parameters = new MapSqlParameterSource()
+                        .addValue(BulkTable.TENANT_PARAMETER, tenantId)
+                        .addValue(BulkTable.ROWS_PARAMETER, rowsJson(table, batch));
+                updatedIds.addAll(jdbcTemplate.queryForList(table.updateSql(), parameters, table.idType()));
+            }
+        });
+        final List<Object> conflicts = new ArrayList<>();
+        for (T row : rows) {
+            final Object id = table.id(row);
+            if (!updatedIds.contains(id)) {
+                conflicts.add(id);
+            }
+        }
+        return new BulkUpdateResult(rows.size() - conflicts.size(), conflicts);
+    }
+
+    private <T> String rowsJson(BulkTable<T> table, List<T> batch) {
+        final List<Map<String, Object>> jsonRows = new ArrayList<>(batch.size());
+        for (T row : batch) {
+            final Map<String, Object> jsonRow = new LinkedHashMap<>();
+            table.values(row).forEach((column, value) -> jsonRow.put(column, jsonValue(value)));
+            jsonRows.add(jsonRow);
+        }
+        try {
+            return objectMapper.writeValueAsString(jsonRows);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Bulk update rows are not serializable", e);
+        }
+    }
+
+    // the conversions Spring Data JDBC applies before binding: enums by name, Instants as timestamps
+    private static Object jdbcValue(Object value) {
+        return switch (value) {
+            case Enum<?> constant -> constant.name();
+            case Instant instant -> Timestamp.from(instant);
+            case null, default -> value;
+        };
+    }
+
+    // Values in the text form Postgres parses for the column type; anything else (maps, records) is a jsonb column
+    private static Object jsonValue(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Enum<?> constant -> constant.name();
+            case Timestamp timestamp -> timestamp.toInstant().toString();
+            case UUID uuid -> uuid.toString();
+            case TemporalAccessor temporal -> temporal.toString();
+            case byte[] bytes -> "\\x" + HexFormat.of().formatHex(bytes);
+            default -> value;
+        };
+    }
+}
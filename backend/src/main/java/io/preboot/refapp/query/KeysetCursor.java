@@ -0,0 +1,84 @@
+package io.preboot.refapp.query;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+// Opaque cursor holding the sort key values of the last row of a page. Values keep their JDBC type, so they bind
+// against the sort columns exactly like the values read from them. Cursors are not signed: a forged cursor can only
+// move the position within the caller's own tenant.
+final class KeysetCursor {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private KeysetCursor() {}
+
+    static String encode(List<Object> values) {
+        final String[] encoded = new String[values.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = encodeValue(values.get(i));
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(OBJECT_MAPPER.writeValueAsBytes(encoded));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    static List<Object> decode(String cursor, int expectedValues) {
+        try {
+            final String[] encoded = OBJECT_MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), String[].class);
+            if (encoded.length != expectedValues) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            final List<Object> values = new ArrayList<>(encoded.length);
+            for (String value : encoded) {
+                values.add(decodeValue(value));
+            }
+            return values;
+        } catch (RuntimeException | IOException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String encodeValue(Object value) {
+        return switch (value) {
+            case String string -> "s:" + string;
+            case Long number -> "l:" + number;
+            case Integer number -> "i:" + number;
+            case BigDecimal number -> "n:" + number.toPlainString();
+            case UUID uuid -> "u:" + uuid;
+            case Timestamp timestamp -> "t:" + timestamp.toInstant();
+            case OffsetDateTime dateTime -> "o:" + dateTime;
+            case Date date -> "d:" + date.toLocalDate();
+            case Boolean bool -> "b:" + bool;
+            case null -> throw new IllegalStateException("Keyset sort columns must not be null");
+            default -> throw new IllegalStateException("Unsupported keyset sort value: " + value.getClass());
+        };
+    }
+
+    private static Object decodeValue(String value) {
+        final String content = value.substring(2);
+        return switch (value.substring(0, 2)) {
+            case "s:" -> content;
+            case "l:" -> Long.parseLong(content);
+            case "i:" -> Integer.parseInt(content);
+            case "n:" -> new BigDecimal(content);
+            case "u:" -> UUID.fromString(content);
+            case "t:" -> Timestamp.from(Instant.parse(content));
+            case "o:" -> OffsetDateTime.parse(content);
+            case "d:" -> Date.valueOf(LocalDate.parse(content));
+            case "b:" -> Boolean.parseBoolean(content);
+            default -> throw new IllegalArgumentException("Invalid cursor value");
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package io.preboot.refapp.query;
+
+import java.util.Collection;
+import java.util.List;
+
+// A client supplied filter on a declared KeysetQuery field. Values are always bound as parameters; an IN filter binds
+// its values as one array, so lists of any length share one statement.
+public record KeysetFilter(String field, Operator operator, Object value) {
+    public KeysetFilter {
+        if (field == null || operator == null || value == null) {
+            throw new IllegalArgumentException("Filter needs a field, an operator and a value");
+        }
+        if (operator == Operator.IN) {
+            if (!(value instanceof Collection<?> values) || values.isEmpty()) {
+                throw new IllegalArgumentException("IN filter on " + field + " needs a non empty collection");
+            }
+            value = List.copyOf((Collection<?>) value);
+        }
+    }
+
+    public static KeysetFilter eq(String field, Object value) {
+        return new KeysetFilter(field, Operator.EQ, value);
+    }
+
+    public static KeysetFilter ne(String field, Object value) {
+        return new KeysetFilter(field, Operator.NE, value);
+    }
+
+    public static KeysetFilter lt(String field, Object value) {
+        return new KeysetFilter(field, Operator.LT, value);
+    }
+
+    public static KeysetFilter le(String field, Object value) {
+        return new KeysetFilter(field, Operator.LE, value);
+    }
+
+    public static KeysetFilter gt(String field, Object value) {
+        return new KeysetFilter(field, Operator.GT, value);
+    }
+
+    public static KeysetFilter ge(String field, Object value) {
+        return new KeysetFilter(field, Operator.GE, value);
+    }
+
+    public static KeysetFilter in(String field, Collection<?> values) {
+        return new KeysetFilter(field, Operator.IN, values);
+    }
+
+    public static KeysetFilter like(String field, String pattern) {
+        return new KeysetFilter(field, Operator.LIKE, pattern);
+    }
+
+    // what the SQL text depends on, the value never is
+    Shape shape() {
+        return new Shape(field, operator);
+    }
+
+    record Shape(String field, Operator operator) {}
+
+    public enum Operator {
+        EQ("="),
+        NE("<>"),
+        LT("<"),
+        LE("<="),
+        GT(">"),
+        GE(">="),
+        IN("= ANY"),
+        LIKE("LIKE");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+
+        String sql() {
+            return sql;
+        }
+    }
+}
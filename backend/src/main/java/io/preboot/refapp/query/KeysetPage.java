@@ -0,0 +1,6 @@
+package io.preboot.refapp.query;
+
+import java.util.List;
+
+// nextCursor is null on the last page, total is null for PageMode.NONE
+public record KeysetPage<T>(List<T> content, String nextCursor, PageTotal total) {}
@@ -0,0 +1,123 @@
+package io.preboot.refapp.query;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.preboot.securedata.context.SecurityContextProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Cursor based alternative to offset pagination: every page seeks directly to the row after the previous page via the
+// sort index, so page 10000 costs the same as page 1. Whether and how the total is counted is chosen per call.
+@Component
+public class KeysetPaginator {
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SecurityContextProvider securityContextProvider;
+    private final ObjectMapper objectMapper;
+    private final KeysetSqlCache sqlCache;
+    private final long countCap;
+
+    KeysetPaginator(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            SecurityContextProvider securityContextProvider,
+            ObjectMapper objectMapper,
+            KeysetSqlCache sqlCache,
+            @Value("${app.query.count-cap:10000}") long countCap) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.securityContextProvider = securityContextProvider;
+        this.objectMapper = objectMapper;
+        this.sqlCache = sqlCache;
+        this.countCap = countCap;
+    }
+
+    public <T> KeysetPage<T> page(KeysetQuery query, String cursor, int size, RowMapper<T> rowMapper) {
+        return page(query, cursor, size, rowMapper, PageMode.NONE);
+    }
+
+    public <T> KeysetPage<T> page(
+            KeysetQuery query, String cursor, int size, RowMapper<T> rowMapper, PageMode pageMode) {
+        return page(query, List.of(), cursor, size, rowMapper, pageMode);
+    }
+
+    // filters come from the client; keep them the same across the pages of one listing
+    public <T> KeysetPage<T> page(
+            KeysetQuery query,
+            List<KeysetFilter> filters,
+            String cursor,
+            int size,
+            RowMapper<T> rowMapper,
+            PageMode pageMode) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        final UUID tenantId = TenantScope.currentTenantId(securityContextProvider, query.readPermission());
+        final List<KeysetFilter> canonicalFilters = query.canonical(filters);
+        final List<Object> after =
+                cursor == null || cursor.isBlank() ? List.of() : KeysetCursor.decode(cursor, query.sortKeyCount());
+        final MapSqlParameterSource parameters = query.parameters(tenantId, after, canonicalFilters)
+                .addValue(KeysetQuery.LIMIT_PARAMETER, size + 1); // one extra row tells whether there is a next page
+        final String sql = sqlCache.select(query, canonicalFilters, !after.isEmpty(), true);
+        final KeysetPage<T> page = jdbcTemplate.query(sql, parameters, resultSet -> {
+            final List<T> content = new ArrayList<>(size);
+            List<Object> lastSortValues = null;
+            while (resultSet.next()) {
+                if (content.size() == size) {
+                    return new KeysetPage<>(content, KeysetCursor.encode(lastSortValues), null);
+                }
+                content.add(rowMapper.mapRow(resultSet, content.size()));
+                if (content.size() == size) {
+                    lastSortValues = query.sortValues(resultSet);
+                }
+            }
+            return new KeysetPage<>(content, null, null);
+        });
+        if (pageMode == PageMode.NONE) {
+            return page;
+        }
+        final PageTotal total = total(query, canonicalFilters, tenantId, page, after, pageMode);
+        return new KeysetPage<>(page.content(), page.nextCursor(), total);
+    }
+
+    private PageTotal total(
+            KeysetQuery query,
+            List<KeysetFilter> filters,
+            UUID tenantId,
+            KeysetPage<?> page,
+            List<Object> after,
+            PageMode pageMode) {
+        if (after.isEmpty() && page.nextCursor() == null) {
+            return new PageTotal(page.content().size(), PageTotal.Accuracy.EXACT); // everything fit on the first page
+        }
+        final MapSqlParameterSource parameters = query.parameters(tenantId, List.of(), filters);
+        final String sql = sqlCache.count(query, filters, pageMode);
+        return switch (pageMode) {
+            case EXACT -> new PageTotal(
+                    jdbcTemplate.queryForObject(sql, parameters, Long.class), PageTotal.Accuracy.EXACT);
+            case CAPPED -> {
+                final long count = jdbcTemplate.queryForObject(
+                        sql, parameters.addValue(KeysetQuery.COUNT_CAP_PARAMETER, countCap), Long.class);
+                yield new PageTotal(
+                        count, count < countCap ? PageTotal.Accuracy.EXACT : PageTotal.Accuracy.AT_LEAST);
+            }
+            case ESTIMATED -> new PageTotal(
+                    estimatedRows(jdbcTemplate.queryForObject(sql, parameters, String.class)),
+                    PageTotal.Accuracy.ESTIMATED);
+            case NONE -> null;
+        };
+    }
+
+    private long estimatedRows(String plan) {
+        try {
+            return objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unexpected query plan: " + plan, e);
+        }
+    }
+}
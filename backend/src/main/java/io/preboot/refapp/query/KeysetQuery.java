@@ -0,0 +1,269 @@
+package io.preboot.refapp.query;
+
+import java.lang.reflect.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+// Describes a tenant table for keyset pagination and streaming export. Fields map API names to columns and only
+// declared fields can be selected or sorted by. Sort fields must be NOT NULL and the last one unique (usually the id),
+// so the order is total and a page can continue right after the last row of the previous one. Every query declares the
+// permission needed to read it, checked against the caller's security context like SecureRepository does.
+public final class KeysetQuery {
+    private static final Pattern COLUMN = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final Pattern FIELD = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+    static final String TENANT_PARAMETER = "keysetTenantId";
+    static final String CURSOR_PARAMETER = "keysetCursor";
+    static final String LIMIT_PARAMETER = "keysetLimit";
+    static final String COUNT_CAP_PARAMETER = "keysetCountCap";
+    static final String FILTER_PARAMETER = "keysetFilter";
+
+    private final String table;
+    private final String tenantColumn;
+    private final String readPermission;
+    private final Map<String, String> fields;
+    private final List<SortKey> sortKeys;
+    private final String where;
+    private final Map<String, Object> parameters;
+    private final String selectList; // built from the builder's fields, which keep declaration order
+
+    private KeysetQuery(Builder builder) {
+        if (builder.fields.isEmpty() || builder.sortKeys.isEmpty()) {
+            throw new IllegalArgumentException("Keyset query on " + builder.table + " needs fields and sort keys");
+        }
+        if (builder.readPermission == null) {
+            throw new IllegalArgumentException("Keyset query on " + builder.table + " needs a read permission");
+        }
+        this.table = builder.table;
+        this.tenantColumn = builder.tenantColumn;
+        this.readPermission = builder.readPermission;
+        this.fields = Map.copyOf(builder.fields);
+        this.sortKeys = List.copyOf(builder.sortKeys);
+        this.where = builder.where;
+        this.parameters = Map.copyOf(builder.parameters);
+        this.selectList = builder.fields.entrySet().stream()
+                .map(field -> field.getValue() + " AS \"" + field.getKey() + "\"")
+                .collect(Collectors.joining(", "));
+    }
+
+    public static Builder builder(String table, String tenantColumn) {
+        return new Builder(table, tenantColumn);
+    }
+
+    String readPermission() {
+        return readPermission;
+    }
+
+    int sortKeyCount() {
+        return sortKeys.size();
+    }
+
+    String sql(boolean afterCursor, boolean limited) {
+        return sql(List.of(), afterCursor, limited);
+    }
+
+    // filters must be canonical(), so their parameter names follow the same order as in the cached SQL text
+    String sql(List<KeysetFilter> filters, boolean afterCursor, boolean limited) {
+        final StringBuilder sql = new StringBuilder("SELECT ").append(selectList).append(fromWhere(filters));
+        if (afterCursor) {
+            sql.append(" AND ").append(seekCondition());
+        }
+        sql.append(" ORDER BY ")
+                .append(sortKeys.stream()
+                        .map(sortKey -> column(sortKey) + (sortKey.descending() ? " DESC" : " ASC"))
+                        .collect(Collectors.joining(", ")));
+        if (limited) {
+            sql.append(" LIMIT :").append(LIMIT_PARAMETER);
+        }
+        return sql.toString();
+    }
+
+    String countSql(PageMode pageMode) {
+        return countSql(List.of(), pageMode);
+    }
+
+    String countSql(List<KeysetFilter> filters, PageMode pageMode) {
+        return switch (pageMode) {
+            case EXACT -> "SELECT count(*)" + fromWhere(filters);
+            case ESTIMATED -> "EXPLAIN (FORMAT JSON) SELECT 1" + fromWhere(filters);
+            case CAPPED -> "SELECT count(*) FROM (SELECT 1" + fromWhere(filters) + " LIMIT :" + COUNT_CAP_PARAMETER
+                    + ") capped";
+            case NONE -> throw new IllegalArgumentException("PageMode.NONE doesn't count");
+        };
+    }
+
+    private String fromWhere(List<KeysetFilter> filters) {
+        final StringBuilder sql = new StringBuilder(" FROM ")
+                .append(table)
+                .append(" WHERE ")
+                .append(tenantColumn)
+                .append(" = :")
+                .append(TENANT_PARAMETER);
+        if (where != null) {
+            sql.append(" AND (").append(where).append(")");
+        }
+        for (int i = 0; i < filters.size(); i++) {
+            final KeysetFilter filter = filters.get(i);
+            sql.append(" AND ").append(fields.get(filter.field())).append(' ').append(filter.operator().sql());
+            if (filter.operator() == KeysetFilter.Operator.IN) {
+                sql.append(" (:").append(FILTER_PARAMETER).append(i).append(')');
+            } else {
+                sql.append(" :").append(FILTER_PARAMETER).append(i);
+            }
+        }
+        return sql.toString();
+    }
+
+    // Filters in one fixed order (by field, then operator), so the same filters given in any order produce the same
+    // SQL text and share a cached statement. Only declared fields can be filtered on.
+    List<KeysetFilter> canonical(List<KeysetFilter> filters) {
+        for (KeysetFilter filter : filters) {
+            if (!fields.containsKey(filter.field())) {
+                throw new IllegalArgumentException("Unknown filter field: " + filter.field());
+            }
+        }
+        return filters.stream()
+                .sorted(Comparator.comparing(KeysetFilter::field).thenComparing(KeysetFilter::operator))
+                .toList();
+    }
+
+    MapSqlParameterSource parameters(UUID tenantId, List<Object> cursorValues) {
+        return parameters(tenantId, cursorValues, List.of());
+    }
+
+    MapSqlParameterSource parameters(UUID tenantId, List<Object> cursorValues, List<KeysetFilter> filters) {
+        final MapSqlParameterSource parameterSource =
+                new MapSqlParameterSource(parameters).addValue(TENANT_PARAMETER, tenantId);
+        for (int i = 0; i < cursorValues.size(); i++) {
+            parameterSource.addValue(CURSOR_PARAMETER + i, cursorValues.get(i));
+        }
+        for (int i = 0; i < filters.size(); i++) {
+            final KeysetFilter filter = filters.get(i);
+            parameterSource.addValue(
+                    FILTER_PARAMETER + i,
+                    filter.operator() == KeysetFilter.Operator.IN
+                            ? typedArray((List<?>) filter.value())
+                            : filter.value());
+        }
+        return parameterSource;
+    }
+
+    // The driver binds a Java array as a Postgres array of the matching type (uuid[], text[], bigint[], ...)
+    private static Object[] typedArray(List<?> values) {
+        final Object[] array = (Object[]) Array.newInstance(values.getFirst().getClass(), values.size());
+        return values.toArray(array);
+    }
+
+    List<Object> sortValues(ResultSet resultSet) throws SQLException {
+        final List<Object> values = new ArrayList<>(sortKeys.size());
+        for (SortKey sortKey : sortKeys) {
+            values.add(resultSet.getObject(sortKey.field()));
+        }
+        return values;
+    }
+
+    // A row value comparison when all keys sort the same way, so Postgres can seek a matching composite index;
+    // otherwise the equivalent expansion (a > :a OR (a = :a AND b < :b) ...)
+    private String seekCondition() {
+        final boolean descending = sortKeys.getFirst().descending();
+        if (sortKeys.stream().allMatch(sortKey -> sortKey.descending() == descending)) {
+            final List<String> columns = new ArrayList<>();
+            final List<String> values = new ArrayList<>();
+            for (int i = 0; i < sortKeys.size(); i++) {
+                columns.add(column(sortKeys.get(i)));
+                values.add(":" + CURSOR_PARAMETER + i);
+            }
+            return "(" + String.join(", ", columns) + ") " + (descending ? "<" : ">") + " ("
+                    + String.join(", ", values) + ")";
+        }
+        final List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < sortKeys.size(); i++) {
+            final StringBuilder alternative = new StringBuilder();
+            for (int j = 0; j < i; j++) {
+                alternative.append(column(sortKeys.get(j))).append(" = :").append(CURSOR_PARAMETER).append(j);
+                alternative.append(" AND ");
+            }
+            final SortKey sortKey = sortKeys.get(i);
+            alternative
+                    .append(column(sortKey))
+                    .append(sortKey.descending() ? " < :" : " > :")
+                    .append(CURSOR_PARAMETER)
+                    .append(i);
+            alternatives.add("(" + alternative + ")");
+        }
+        return "(" + String.join(" OR ", alternatives) + ")";
+    }
+
+    private String column(SortKey sortKey) {
+        return fields.get(sortKey.field());
+    }
+
+    record SortKey(String field, boolean descending) {}
+
+    public static final class Builder {
+        private final String table;
+        private final String tenantColumn;
+        private final Map<String, String> fields = new LinkedHashMap<>();
+        private final List<SortKey> sortKeys = new ArrayList<>();
+        private final Map<String, Object> parameters = new LinkedHashMap<>();
+        private String readPermission;
+        private String where;
+
+        private Builder(String table, String tenantColumn) {
+            this.table = requireColumn(table);
+            this.tenantColumn = requireColumn(tenantColumn);
+        }
+
+        // Permission a caller needs in its security context to page through or export the query
+        public Builder readPermission(String permission) {
+            if (permission == null || permission.isBlank()) {
+                throw new IllegalArgumentException("Invalid read permission: " + permission);
+            }
+            this.readPermission = permission;
+            return this;
+        }
+
+        public Builder field(String name, String column) {
+            if (!FIELD.matcher(name).matches()) {
+                throw new IllegalArgumentException("Invalid field name: " + name);
+            }
+            fields.put(name, requireColumn(column));
+            return this;
+        }
+
+        // Only for declared fields, so a sort requested by a client can't reach other columns
+        public Builder orderBy(String field, boolean descending) {
+            if (!fields.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown sort field: " + field);
+            }
+            sortKeys.add(new SortKey(field, descending));
+            return this;
+        }
+
+        // SQL condition written by the application, never by the client; values go through named parameters
+        public Builder where(String condition, Map<String, ?> conditionParameters) {
+            this.where = condition;
+            this.parameters.putAll(conditionParameters);
+            return this;
+        }
+
+        public KeysetQuery build() {
+            return new KeysetQuery(this);
+        }
+
+        private static String requireColumn(String column) {
+            if (!COLUMN.matcher(column).matches()) {
+                throw new IllegalArgumentException("Invalid column name: " + column);
+            }
+            return column;
+        }
+    }
+}
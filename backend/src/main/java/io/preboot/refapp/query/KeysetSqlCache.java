@@ -0,0 +1,51 @@
+package io.preboot.refapp.query;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// SQL text of keyset queries by shape: the query, which fields are filtered with which operators, whether the page
+// continues after a cursor and which count is taken. Besides skipping the string building, every request of a shape
+// sends byte for byte the same SQL, which is what lets pgjdbc reuse its server side prepared statement (parsed and
+// planned once per connection) instead of parsing and planning the query again.
+@Component
+public class KeysetSqlCache {
+    private final Cache<Key, String> statements;
+
+    KeysetSqlCache(@Value("${app.query.sql-cache.maximum-size:1000}") long maximumSize) {
+        this.statements = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    String select(KeysetQuery query, List<KeysetFilter> filters, boolean afterCursor, boolean limited) {
+        return statements.get(
+                new Key(query, shape(filters), afterCursor, limited, PageMode.NONE),
+                key -> query.sql(filters, afterCursor, limited));
+    }
+
+    String count(KeysetQuery query, List<KeysetFilter> filters, PageMode pageMode) {
+        return statements.get(
+                new Key(query, shape(filters), false, false, pageMode), key -> query.countSql(filters, pageMode));
+    }
+
+    public Stats stats() {
+        final CacheStats stats = statements.stats();
+        return new Stats(statements.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate());
+    }
+
+    private static List<KeysetFilter.Shape> shape(List<KeysetFilter> filters) {
+        return filters.stream().map(KeysetFilter::shape).toList();
+    }
+
+    // queries are constants, so they are compared by identity
+    private record Key(
+            KeysetQuery query,
+            List<KeysetFilter.Shape> filters,
+            boolean afterCursor,
+            boolean limited,
+            PageMode countMode) {}
+
+    public record Stats(long size, long hits, long misses, double hitRate) {}
+}
@@ -0,0 +1,10 @@
+package io.preboot.refapp.query;
+
+// How a page reports the total number of matching rows. Counting all rows costs more than fetching a page on large
+// tables, so pick the cheapest mode the client can live with.
+public enum PageMode {
+    EXACT, // COUNT(*) over all matching rows
+    ESTIMATED, // planner row estimate for the filtered query, no rows are read
+    CAPPED, // exact up to the configured cap, otherwise "at least cap"
+    NONE // no total, clients rely on nextCursor
+}
@@ -0,0 +1,9 @@
+package io.preboot.refapp.query;
+
+public record PageTotal(long count, Accuracy accuracy) {
+    public enum Accuracy {
+        EXACT,
+        ESTIMATED,
+        AT_LEAST
+    }
+}
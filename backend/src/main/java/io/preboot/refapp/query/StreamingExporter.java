@@ -0,0 +1,213 @@
+package io.preboot.refapp.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.preboot.refapp.exception.TooManyRequestsException;
+import io.preboot.securedata.context.SecurityContextProvider;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import javax.sql.DataSource;
+import org.postgresql.util.PGobject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Streams a whole tenant table to the client as NDJSON or CSV. Rows are read through a server side cursor (fetch size
+// rows at a time, which Postgres only does inside a transaction) and written as they arrive, so memory stays flat no
+// matter how many rows are exported. An export holds a pooled connection for its whole duration, so only
+// max-concurrent exports run per node at a time and further ones are rejected with 429 instead of starving requests.
+@Component
+public class StreamingExporter {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final SecurityContextProvider securityContextProvider;
+    private final Semaphore exports;
+
+    StreamingExporter(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            SecurityContextProvider securityContextProvider,
+            @Value("${app.query.export.fetch-size:500}") int fetchSize,
+            @Value("${app.query.export.max-concurrent:2}") int maxConcurrent) {
+        final JdbcTemplate cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursorJdbcTemplate);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.securityContextProvider = securityContextProvider;
+        this.exports = new Semaphore(maxConcurrent);
+    }
+
+    public ResponseEntity<StreamingResponseBody> export(KeysetQuery query, ExportFormat format, String fileName) {
+        // resolved on the request thread, the body is written on an async one
+        final MapSqlParameterSource parameters = query.parameters(
+                TenantScope.currentTenantId(securityContextProvider, query.readPermission()), List.of());
+        final String sql = query.sql(false, false);
+        if (!exports.tryAcquire()) {
+            throw new TooManyRequestsException("Too many exports running, try again later");
+        }
+        final StreamingResponseBody body = outputStream -> {
+            try {
+                final RowWriter rowWriter = format == ExportFormat.CSV
+                        ? new CsvRowWriter(outputStream)
+                        : new NdjsonRowWriter(objectMapper.getFactory().createGenerator(outputStream));
+                readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql, parameters, resultSet -> {
+                    try {
+                        rowWriter.write(resultSet);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // client went away, stop reading
+                    }
+                }));
+                rowWriter.finish();
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // the container recognizes a failed write as the client having disconnected
+            } finally {
+                exports.release();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment()
+                                .filename(fileName + "." + format.extension())
+                                .build()
+                                .toString())
+                .body(body);
+    }
+
+    private interface RowWriter {
+        void write(ResultSet resultSet) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private SerializedString[] names; // encoded once from the first row
+
+        NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException, IOException {
+            if (names == null) {
+                final ResultSetMetaData metaData = resultSet.getMetaData();
+                names = new SerializedString[metaData.getColumnCount()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = new SerializedString(metaData.getColumnLabel(i + 1));
+                }
+            }
+            generator.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                generator.writeFieldName(names[i]);
+                writeValue(resultSet.getObject(i + 1));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeValue(Object value) throws IOException {
+            switch (value) {
+                case null -> generator.writeNull();
+                case Timestamp timestamp -> generator.writeObject(timestamp.toInstant());
+                case Date date -> generator.writeObject(date.toLocalDate());
+                case PGobject object when object.getType().startsWith("json") -> generator.writeRawValue(
+                        object.getValue());
+                case PGobject object -> generator.writeString(object.getValue());
+                default -> generator.writeObject(value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private int columnCount;
+
+        CsvRowWriter(OutputStream outputStream) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException, IOException {
+            if (columnCount == 0) {
+                final ResultSetMetaData metaData = resultSet.getMetaData();
+                columnCount = metaData.getColumnCount();
+                for (int i = 1; i <= columnCount; i++) {
+                    writeCell(metaData.getColumnLabel(i), i);
+                }
+                writer.write("\r\n");
+            }
+            for (int i = 1; i <= columnCount; i++) {
+                final Object value = resultSet.getObject(i);
+                writeCell(
+                        switch (value) {
+                            case null -> "";
+                            case Timestamp timestamp -> timestamp.toInstant().toString();
+                            default -> value.toString();
+                        },
+                        i);
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeCell(String value, int column) throws IOException {
+            if (column > 1) {
+                writer.write(',');
+            }
+            if (needsQuoting(value)) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+
+        private static boolean needsQuoting(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.preboot.refapp.query;
+
+import io.preboot.securedata.context.SecurityContext;
+import io.preboot.securedata.context.SecurityContextProvider;
+import java.util.UUID;
+import org.springframework.security.access.AccessDeniedException;
+
+// Queries of this package bypass SecureRepository, so they scope themselves to the caller's tenant and check the
+// caller's permissions themselves
+final class TenantScope {
+    private TenantScope() {}
+
+    static UUID currentTenantId(SecurityContextProvider securityContextProvider) {
+        return current(securityContextProvider).getTenantId();
+    }
+
+    static UUID currentTenantId(SecurityContextProvider securityContextProvider, String requiredPermission) {
+        final SecurityContext securityContext = current(securityContextProvider);
+        if (securityContext.getPermissions() == null
+                || !securityContext.getPermissions().contains(requiredPermission)) {
+            throw new AccessDeniedException("Missing permission " + requiredPermission);
+        }
+        return securityContext.getTenantId();
+    }
+
+    private static SecurityContext current(SecurityContextProvider securityContextProvider) {
+        final SecurityContext securityContext = securityContextProvider.getCurrentContext();
+        if (securityContext == null || securityContext.getTenantId() == null) {
+            throw new SecurityException("Tenant scoped query without a tenant");
+        }
+        return securityContext;
+    }
+}
@@ -0,0 +1,21 @@
+package io.preboot.refapp.config;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+// Adds a second, independent database as read replica. It is not replicated: tests see on the replica only what they
+// put there themselves, which makes the routing of each read observable.
+public abstract class AbstractReplicaIntegrationTest extends AbstractIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void configureReplicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.datasource.replica.url", replica::getJdbcUrl);
+        registry.add("app.datasource.replica.username", replica::getUsername);
+        registry.add("app.datasource.replica.password", replica::getPassword);
+    }
+}
@@ -0,0 +1,80 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    @Test
+    void shouldShrinkWhenLatencyRises() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 20);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(Duration.ofMillis(10).toNanos(), 20);
+        }
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(Duration.ofMillis(200).toNanos(), limit.getLimit());
+        }
+
+        // then
+        assertThat(limit.getLimit()).isLessThan(20).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldGrowBackWhenLatencyRecovers() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 2, 20);
+
+        // when
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(Duration.ofMillis(10).toNanos(), limit.getLimit());
+        }
+
+        // then
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldIgnoreSamplesWithoutLoad() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 20);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(Duration.ofSeconds(1).toNanos(), 1);
+        }
+
+        // then
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldUpdateOncePerSampleWindow() {
+        // given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 20, 10);
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(Duration.ofMillis(10).toNanos(), 20);
+        }
+
+        // when
+        for (int i = 0; i < 9; i++) {
+            limit.onSample(Duration.ofMillis(200).toNanos(), 20);
+        }
+        int beforeWindowCloses = limit.getLimit();
+        limit.onSample(Duration.ofMillis(200).toNanos(), 20);
+
+        // then
+        assertThat(beforeWindowCloses).isEqualTo(20);
+        assertThat(limit.getLimit()).isLessThan(20);
+    }
+
+    @Test
+    void shouldRejectInvalidBounds() {
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimit(1, 5, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,180 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+class BatchingJavaMailSenderTest {
+    private final Transport transport = mock(Transport.class);
+    private final AtomicInteger connects = new AtomicInteger();
+    private BatchingJavaMailSender mailSender;
+
+    @AfterEach
+    void tearDown() {
+        mailSender.stop();
+    }
+
+    @Test
+    void shouldSendConcurrentMessagesOverThePooledConnections() throws Exception {
+        // given
+        start(2, 100, Map.of());
+
+        // when
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                final int recipient = i;
+                executor.submit(() -> mailSender.send(message("user" + recipient + "@test.local")));
+            }
+        }
+
+        // then
+        verify(transport, times(20)).sendMessage(any(MimeMessage.class), any(Address[].class));
+        assertThat(connects).hasValueBetween(1, 2);
+        assertThat(mailSender.stats().sentMessages()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldReconnectAfterMaxMessagesPerConnection() throws Exception {
+        // given
+        start(1, 5, Map.of());
+
+        // when
+        for (int i = 0; i < 12; i++) {
+            mailSender.send(message("user" + i + "@test.local"));
+        }
+
+        // then
+        verify(transport, times(12)).sendMessage(any(MimeMessage.class), any(Address[].class));
+        assertThat(connects).hasValue(3);
+    }
+
+    @Test
+    void shouldFailOnlyTheRejectedMessage() throws Exception {
+        // given
+        start(1, 100, Map.of());
+        doThrow(new MessagingException("Mailbox unavailable"))
+                .when(transport)
+                .sendMessage(any(MimeMessage.class), any(Address[].class));
+
+        // when / then
+        assertThatThrownBy(() -> mailSender.send(message("unknown@test.local")))
+                .isInstanceOf(MailSendException.class);
+        assertThat(mailSender.stats().failedMessages()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFailTheBatchWhenConnectingThrows() throws Exception {
+        // given
+        mailSender = new BatchingJavaMailSender(
+                50, 1, 100, 0, Map.of(), Duration.ofMinutes(1), Duration.ofMinutes(1)) {
+            @Override
+            protected Transport connectTransport() {
+                throw new IllegalStateException("No mail session");
+            }
+        };
+        mailSender.start();
+
+        // when / then
+        assertThatThrownBy(() -> mailSender.send(message("user@test.local")))
+                .isInstanceOf(MailSendException.class)
+                .hasStackTraceContaining("No mail session");
+        assertThatThrownBy(() -> mailSender.send(message("user@test.local"))).isInstanceOf(MailSendException.class);
+        assertThat(mailSender.stats().failedMessages()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldWithdrawMessagesNotSentWithinTheSendTimeout() throws Exception {
+        // given
+        start(1, 100, Map.of(), Duration.ofMillis(200));
+        final CountDownLatch serverResponds = new CountDownLatch(1);
+        doAnswer(invocation -> {
+                    serverResponds.await();
+                    return null;
+                })
+                .when(transport)
+                .sendMessage(any(MimeMessage.class), any(Address[].class));
+
+        // when
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final Future<?> inFlight = executor.submit(() -> mailSender.send(message("first@test.local")));
+            Thread.sleep(50); // the sender thread is stuck on the first message
+            final Future<?> queued = executor.submit(() -> mailSender.send(message("second@test.local")));
+
+            // then
+            assertThatThrownBy(inFlight::get).hasCauseInstanceOf(MailSendException.class);
+            assertThatThrownBy(queued::get).hasCauseInstanceOf(MailSendException.class);
+        } finally {
+            serverResponds.countDown();
+        }
+        mailSender.stop();
+        verify(transport, times(1)).sendMessage(any(MimeMessage.class), any(Address[].class));
+    }
+
+    @Test
+    void shouldPaceMessagesToTheReceivingProviderLimit() throws Exception {
+        // given
+        start(2, 100, Map.of("slow.local", 10));
+        final long startedAt = System.nanoTime();
+
+        // when
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 3; i++) {
+                executor.submit(() -> mailSender.send(message("user@slow.local")));
+                executor.submit(() -> mailSender.send(message("user@fast.local")));
+            }
+        }
+
+        // then
+        verify(transport, times(6)).sendMessage(any(MimeMessage.class), any(Address[].class));
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+    }
+
+    private void start(int connections, int maxMessagesPerConnection, Map<String, Integer> providerLimits) {
+        start(connections, maxMessagesPerConnection, providerLimits, Duration.ofMinutes(1));
+    }
+
+    private void start(
+            int connections, int maxMessagesPerConnection, Map<String, Integer> providerLimits, Duration sendTimeout) {
+        when(transport.isConnected()).thenReturn(true);
+        mailSender = new BatchingJavaMailSender(
+                50, connections, maxMessagesPerConnection, 0, providerLimits, Duration.ofMinutes(1), sendTimeout) {
+            @Override
+            protected Transport connectTransport() {
+                connects.incrementAndGet();
+                return transport;
+            }
+        };
+        mailSender.start();
+    }
+
+    private SimpleMailMessage message(String to) {
+        final SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("test@system.local");
+        message.setTo(to);
+        message.setSubject("Invitation");
+        message.setText("Welcome");
+        return message;
+    }
+}
@@ -0,0 +1,67 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class DeficitRoundRobinTest {
+    private static final UUID HEAVY = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID LIGHT = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID OTHER = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    @Test
+    void shouldNotLetAHeavyTenantStarveTheOthers() {
+        // given
+        DeficitRoundRobin roundRobin = new DeficitRoundRobin(properties(Map.of()));
+        Map<UUID, FairTaskScheduler.TenantStats> tenants = Map.of(
+                HEAVY, new FairTaskScheduler.TenantStats(100_000, 0),
+                LIGHT, new FairTaskScheduler.TenantStats(3, 0),
+                OTHER, new FairTaskScheduler.TenantStats(5, 0));
+
+        // when
+        Map<UUID, Integer> allocation = roundRobin.allocate(tenants, 100);
+
+        // then
+        assertThat(allocation).containsEntry(HEAVY, 10).containsEntry(LIGHT, 3).containsEntry(OTHER, 5);
+    }
+
+    @Test
+    void shouldRespectWeightsAndInFlightCaps() {
+        // given
+        DeficitRoundRobin roundRobin = new DeficitRoundRobin(properties(Map.of(LIGHT, 3)));
+        Map<UUID, FairTaskScheduler.TenantStats> tenants = Map.of(
+                HEAVY, new FairTaskScheduler.TenantStats(1_000, 45),
+                LIGHT, new FairTaskScheduler.TenantStats(1_000, 0),
+                OTHER, new FairTaskScheduler.TenantStats(1_000, 50));
+
+        // when
+        Map<UUID, Integer> allocation = roundRobin.allocate(tenants, 100);
+
+        // then
+        assertThat(allocation).containsEntry(HEAVY, 5).containsEntry(LIGHT, 30).doesNotContainKey(OTHER);
+    }
+
+    @Test
+    void shouldResumeWithTheNextTenantWhenTheBudgetRunsOut() {
+        // given
+        DeficitRoundRobin roundRobin = new DeficitRoundRobin(properties(Map.of()));
+        Map<UUID, FairTaskScheduler.TenantStats> tenants = Map.of(
+                HEAVY, new FairTaskScheduler.TenantStats(1_000, 0),
+                LIGHT, new FairTaskScheduler.TenantStats(1_000, 0),
+                OTHER, new FairTaskScheduler.TenantStats(1_000, 0));
+
+        // when
+        Map<UUID, Integer> first = roundRobin.allocate(tenants, 10);
+        Map<UUID, Integer> second = roundRobin.allocate(tenants, 10);
+
+        // then
+        assertThat(first).containsOnlyKeys(HEAVY);
+        assertThat(second).containsOnlyKeys(LIGHT);
+    }
+
+    private static FairTaskProperties properties(Map<UUID, Integer> weights) {
+        return new FairTaskProperties(10, 50, null, null, null, null, weights);
+    }
+}
@@ -0,0 +1,156 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.preboot.eventbus.EventHandler;
+import io.preboot.eventbus.tasks.TaskRunner;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Neither the task dispatcher nor the polling job runs in this mode, the test runs the queued tasks itself
+@SpringBootTest(
+        properties = {"app.task-runner.mode=manual", "app.task-runner.fairness.max-in-flight-per-tenant=1"})
+@ActiveProfiles("test")
+class FairTaskSchedulerIntegrationTest extends AbstractIntegrationTest {
+    private static final UUID TENANT_ID = UUID.randomUUID();
+
+    public record ImportRow(UUID tenantId, String row) implements TenantTask {}
+
+    static class ImportRowHandler {
+        private final List<String> attempted = new CopyOnWriteArrayList<>();
+        private final List<String> imported = new CopyOnWriteArrayList<>();
+        private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+        @EventHandler
+        public void onImportRow(ImportRow task) {
+            attempted.add(task.row());
+            if (failing.contains(task.row())) {
+                throw new IllegalStateException("Import of " + task.row() + " failed");
+            }
+            imported.add(task.row());
+        }
+    }
+
+    @TestConfiguration
+    static class HandlerConfig {
+        @Bean
+        ImportRowHandler importRowHandler() {
+            return new ImportRowHandler();
+        }
+    }
+
+    @Autowired
+    private FairTaskScheduler fairTaskScheduler;
+
+    @Autowired
+    private TaskRunner taskRunner;
+
+    @Autowired
+    private ImportRowHandler handler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM tenant_task_backlog WHERE tenant_id = ?", TENANT_ID);
+        handler.attempted.clear();
+        handler.imported.clear();
+        handler.failing.clear();
+    }
+
+    @Test
+    void shouldReleaseNextTaskOfTenantOnceTheFirstCompleted() {
+        // given
+        submit("row 1", "row 2");
+        awaitUntil(() -> releasedRows() == 1);
+        assertThat(queuedRows()).as("max-in-flight-per-tenant holds back the second row").isEqualTo(1);
+
+        // when
+        runTasksUntil(() -> handler.imported.contains("row 1"));
+
+        // then
+        awaitUntil(() -> releasedRows() == 1 && queuedRows() == 0);
+        runTasksUntil(() -> handler.imported.contains("row 2"));
+        awaitUntil(() -> releasedRows() == 0);
+        assertThat(handler.imported).containsExactly("row 1", "row 2");
+    }
+
+    @Test
+    void shouldFreeSlotOfFailedTask() {
+        // given
+        handler.failing.add("poison");
+        submit("poison", "row 2");
+        awaitUntil(() -> releasedRows() == 1);
+        final long failedBefore = fairTaskScheduler.stats().failedTasks();
+
+        // when
+        runTasksUntil(() -> handler.attempted.contains("poison"));
+
+        // then
+        assertThat(fairTaskScheduler.stats().failedTasks()).isEqualTo(failedBefore + 1);
+        awaitUntil(() -> releasedRows() == 1 && queuedRows() == 0);
+        runTasksUntil(() -> handler.imported.contains("row 2"));
+        awaitUntil(() -> releasedRows() == 0);
+        assertThat(handler.imported).containsExactly("row 2");
+    }
+
+    private void submit(String... rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String row : rows) {
+                fairTaskScheduler.submit(new ImportRow(TENANT_ID, row));
+            }
+        });
+    }
+
+    private int releasedRows() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM tenant_task_backlog WHERE tenant_id = ? AND released_at IS NOT NULL",
+                Integer.class,
+                TENANT_ID);
+    }
+
+    private int queuedRows() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM tenant_task_backlog WHERE tenant_id = ? AND released_at IS NULL",
+                Integer.class,
+                TENANT_ID);
+    }
+
+    // Other tasks of the application may be queued too, they run along
+    private void runTasksUntil(BooleanSupplier condition) {
+        while (!condition.getAsBoolean()) {
+            assertThat(taskRunner.runTask()).as("task queue drained").isNotNull();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class GcraRateLimiterTest {
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100); // 10 per second
+    private static final long BURST_TOLERANCE = INTERVAL * 4; // burst of 5
+
+    private final GcraRateLimiter rateLimiter = new GcraRateLimiter(1000, Duration.ofMinutes(1));
+
+    @Test
+    void shouldAdmitBurstAndThenRejectWithWaitTime() {
+        // given
+        final long now = TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("ip:1", INTERVAL, BURST_TOLERANCE, now)).isZero();
+        }
+
+        // when
+        long waitNanos = rateLimiter.tryAcquire("ip:1", INTERVAL, BURST_TOLERANCE, now);
+
+        // then
+        assertThat(waitNanos).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void shouldAdmitOneRequestPerIntervalOnceBurstIsUsed() {
+        // given
+        final long now = TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("ip:1", INTERVAL, BURST_TOLERANCE, now);
+        }
+
+        // when
+        long afterOneInterval = rateLimiter.tryAcquire("ip:1", INTERVAL, BURST_TOLERANCE, now + INTERVAL);
+        long rightAfter = rateLimiter.tryAcquire("ip:1", INTERVAL, BURST_TOLERANCE, now + INTERVAL);
+
+        // then
+        assertThat(afterOneInterval).isZero();
+        assertThat(rightAfter).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void shouldKeepKeysIndependent() {
+        // given
+        final long now = TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("ip:1", INTERVAL, BURST_TOLERANCE, now);
+        }
+
+        // when
+        long otherKey = rateLimiter.tryAcquire("ip:2", INTERVAL, BURST_TOLERANCE, now);
+
+        // then
+        assertThat(otherKey).isZero();
+    }
+}
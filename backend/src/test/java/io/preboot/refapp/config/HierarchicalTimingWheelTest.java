@@ -0,0 +1,60 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void shouldFireEntriesOnceDue() {
+        // given
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 3, 0);
+        wheel.add("soon", 25);
+        wheel.add("later", 95);
+        List<String> fired = new ArrayList<>();
+
+        // when
+        wheel.advance(29, fired::add);
+
+        // then
+        assertThat(fired).isEmpty();
+        wheel.advance(30, fired::add);
+        assertThat(fired).containsExactly("soon");
+        wheel.advance(100, fired::add);
+        assertThat(fired).containsExactly("soon", "later");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldCascadeEntriesBeyondTheTopLevel() {
+        // given
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 3, 0);
+        wheel.add("far", 1_000);
+        List<String> fired = new ArrayList<>();
+
+        // when
+        wheel.advance(990, fired::add);
+
+        // then
+        assertThat(fired).isEmpty();
+        wheel.advance(1_000, fired::add);
+        assertThat(fired).containsExactly("far");
+    }
+
+    @Test
+    void shouldRejectEntriesAlreadyDue() {
+        // given
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 3, 0);
+        wheel.advance(50, item -> {});
+
+        // when
+        boolean added = wheel.add("late", 45);
+
+        // then
+        assertThat(added).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+}
@@ -0,0 +1,189 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.preboot.eventbus.EventPublisher;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxDispatcherIntegrationTest extends AbstractIntegrationTest {
+    private static final int MAX_ATTEMPTS = 3;
+
+    public record OrderEvent(String orderId, String step) implements AggregateEvent {
+        @Override
+        public String aggregateKey() {
+            return "order-" + orderId;
+        }
+    }
+
+    public record AuditEvent(String message) {}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PayloadCodec payloadCodec;
+
+    private final List<String> attempted = new CopyOnWriteArrayList<>(); // every delivery attempt, in order
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>(); // by event name
+    private final List<OutboxDispatcher> dispatchers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE event_outbox");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatchers.forEach(OutboxDispatcher::stop);
+    }
+
+    @Test
+    void shouldDeliverEventsOfAnAggregateInPublishOrder() {
+        // given
+        failuresLeft.put("1:created", new AtomicInteger(2));
+        final OutboxEventPublisher publisher = publisher(startDispatcher());
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            publisher.publish(new OrderEvent("1", "created"));
+            publisher.publish(new OrderEvent("2", "created"));
+            publisher.publish(new OrderEvent("1", "paid"));
+            publisher.publish(new OrderEvent("1", "shipped"));
+        });
+
+        // then
+        awaitUntil(() -> outboxSize() == 0);
+        assertThat(delivered).containsExactlyInAnyOrder("1:created", "1:paid", "1:shipped", "2:created");
+        assertThat(delivered.stream().filter(name -> name.startsWith("1:")))
+                .containsExactly("1:created", "1:paid", "1:shipped");
+        assertThat(attempted.stream().filter(name -> name.startsWith("1:")))
+                .containsExactly("1:created", "1:created", "1:created", "1:paid", "1:shipped");
+    }
+
+    @Test
+    void shouldDeadLetterPoisonEventWithoutHoldingBackOthers() {
+        // given
+        failuresLeft.put("poison", new AtomicInteger(Integer.MAX_VALUE));
+        failuresLeft.put("3:created", new AtomicInteger(Integer.MAX_VALUE));
+        final OutboxEventPublisher publisher = publisher(startDispatcher());
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            publisher.publish(new AuditEvent("poison"));
+            publisher.publish(new AuditEvent("after"));
+            publisher.publish(new OrderEvent("3", "created"));
+            publisher.publish(new OrderEvent("3", "paid"));
+        });
+
+        // then
+        awaitUntil(() -> delivered.containsAll(List.of("after", "3:paid")) && deadLetters() == 2);
+        assertThat(attempted.indexOf("after"))
+                .as("an event without a key is not held back by a failing event of its type")
+                .isLessThan(attempted.lastIndexOf("poison"));
+        assertThat(attempted.indexOf("3:paid"))
+                .as("an aggregate's next event waits until the poison event is dead lettered")
+                .isGreaterThan(attempted.lastIndexOf("3:created"));
+        assertThat(jdbcTemplate.queryForList(
+                        "SELECT coalesce(aggregate_key, '-') || ' ' || attempts || ' ' || last_error"
+                                + " FROM event_outbox WHERE dead_at IS NOT NULL ORDER BY id",
+                        String.class))
+                .containsExactly(
+                        "- 3 java.lang.IllegalStateException: Handler failed for poison",
+                        "order-3 3 java.lang.IllegalStateException: Handler failed for 3:created");
+        assertThat(outboxSize()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldClaimEachEventOnceAcrossDispatchers() {
+        // given
+        final OutboxEventPublisher publisher = publisher(startDispatcher());
+        startDispatcher();
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 50; i++) {
+                publisher.publish(new AuditEvent("event " + i));
+            }
+        });
+
+        // then
+        awaitUntil(() -> outboxSize() == 0);
+        assertThat(delivered).hasSize(50).doesNotHaveDuplicates();
+    }
+
+    private OutboxDispatcher startDispatcher() {
+        final EventPublisher handlers = event -> {
+            final String name = event instanceof OrderEvent order
+                    ? order.orderId() + ":" + order.step()
+                    : ((AuditEvent) event).message();
+            attempted.add(name);
+            final AtomicInteger failures = failuresLeft.get(name);
+            if (failures != null && failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("Handler failed for " + name);
+            }
+            delivered.add(name);
+        };
+        // retries are due right away, so the tests don't wait for the back-off
+        final OutboxDispatcher dispatcher = new OutboxDispatcher(
+                jdbcTemplate,
+                transactionTemplate,
+                payloadCodec,
+                handlers,
+                10,
+                4,
+                Duration.ofMillis(50),
+                Duration.ofMillis(1),
+                MAX_ATTEMPTS,
+                Duration.ofMinutes(5));
+        dispatchers.add(dispatcher);
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private OutboxEventPublisher publisher(OutboxDispatcher dispatcher) {
+        return new OutboxEventPublisher(jdbcTemplate, payloadCodec, dispatcher);
+    }
+
+    private int outboxSize() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM event_outbox", Integer.class);
+    }
+
+    private int deadLetters() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM event_outbox WHERE dead_at IS NOT NULL", Integer.class);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.repository.Repository;
+
+class ReadOnlyRepositoryInterceptorTest {
+
+    @Test
+    void shouldApplyToRepositoriesOfAllowedPackages() {
+        assertThat(ReadOnlyRepositoryInterceptor.appliesTo(repository(), List.of("io.preboot.refapp")))
+                .isTrue();
+    }
+
+    @Test
+    void shouldNotApplyToRepositoriesOfOtherPackages() {
+        assertThat(ReadOnlyRepositoryInterceptor.appliesTo(repository(), List.of("io.preboot.auth", "io.preboot.ref")))
+                .isFalse();
+    }
+
+    @Test
+    void shouldNotApplyToOtherBeans() {
+        assertThat(ReadOnlyRepositoryInterceptor.appliesTo(new Object(), List.of("io.preboot.refapp")))
+                .isFalse();
+    }
+
+    private static Object repository() {
+        return Proxy.newProxyInstance(
+                SampleRepository.class.getClassLoader(),
+                new Class<?>[] {SampleRepository.class},
+                (proxy, method, args) -> null);
+    }
+
+    interface SampleRepository extends Repository<Object, Long> {}
+}
@@ -0,0 +1,90 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.preboot.auth.api.dto.UserAccountInfo;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+    private final AtomicBoolean replicaUsable = new AtomicBoolean(true);
+    private final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+            mock(DataSource.class), mock(DataSource.class), replicaUsable::get, Duration.ofSeconds(5));
+
+    @BeforeEach
+    void setUp() {
+        UserAccountInfo user = mock(UserAccountInfo.class);
+        when(user.uuid()).thenReturn(UUID.randomUUID());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReplica() {
+        // given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when / then
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.REPLICA);
+    }
+
+    @Test
+    void shouldRouteReadsWithoutUserToPrimary() {
+        // given
+        SecurityContextHolder.clearContext();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when / then
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+        assertThat(dataSource.stats().anonymousFallbacks()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRouteWritesToPrimary() {
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaLags() {
+        // given
+        replicaUsable.set(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when / then
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+        assertThat(dataSource.stats().lagFallbacks()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimary() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        dataSource.determineCurrentLookupKey();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clear();
+
+        // when
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // then
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+        assertThat(dataSource.stats().stickyFallbacks()).isEqualTo(1);
+    }
+}
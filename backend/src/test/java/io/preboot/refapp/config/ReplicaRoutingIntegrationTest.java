@@ -0,0 +1,132 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.preboot.auth.api.dto.UserAccountInfo;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
+import org.springframework.data.relational.core.mapping.Table;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+// The probe row with id 1 says which database a read was served by
+@SpringBootTest
+@ActiveProfiles("test")
+class ReplicaRoutingIntegrationTest extends AbstractReplicaIntegrationTest {
+
+    @Table("replica_probe")
+    record Probe(@Id Long id, String origin) {}
+
+    interface ProbeRepository extends CrudRepository<Probe, Long> {}
+
+    // The application's repository scan skips nested interfaces
+    @TestConfiguration
+    @EnableJdbcRepositories(
+            basePackageClasses = ReplicaRoutingIntegrationTest.class,
+            considerNestedRepositories = true,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ProbeRepository.class))
+    static class ProbeRepositoryConfig {}
+
+    @Autowired
+    private ProbeRepository probeRepository;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @BeforeEach
+    void setUp() {
+        Map.of(primaryDataSource, "primary", replicaDataSource, "replica").forEach((dataSource, origin) -> {
+            final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica_probe (id bigint GENERATED BY DEFAULT AS IDENTITY"
+                    + " (START WITH 1000) PRIMARY KEY, origin text NOT NULL)");
+            jdbcTemplate.execute("TRUNCATE replica_probe RESTART IDENTITY");
+            jdbcTemplate.update("INSERT INTO replica_probe (id, origin) VALUES (1, ?)", origin);
+        });
+        awaitUntil(replicaLagMonitor::isReplicaUsable);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldReadFromReplicaForSignedInUser() {
+        // given
+        signIn(UUID.randomUUID());
+
+        // when / then
+        assertThat(probeRepository.findById(1L)).map(Probe::origin).contains("replica");
+    }
+
+    @Test
+    void shouldReadFromPrimaryWithoutUser() {
+        // when / then: how task and outbox event handlers read
+        assertThat(probeRepository.findById(1L)).map(Probe::origin).contains("primary");
+    }
+
+    @Test
+    void shouldReadOwnWriteFromPrimary() {
+        // given
+        UUID writer = UUID.randomUUID();
+        signIn(writer);
+
+        // when
+        Probe written = probeRepository.save(new Probe(null, "written"));
+
+        // then
+        assertThat(probeRepository.findById(written.id())).map(Probe::origin).contains("written");
+        assertThat(probeRepository.findById(1L)).map(Probe::origin).contains("primary");
+        signIn(UUID.randomUUID());
+        assertThat(probeRepository.findById(1L))
+                .as("other users keep reading the replica")
+                .map(Probe::origin)
+                .contains("replica");
+    }
+
+    private static void signIn(UUID userId) {
+        UserAccountInfo user = mock(UserAccountInfo.class);
+        when(user.uuid()).thenReturn(userId);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class TenantDestinationsTest {
+    private final UUID tenantId = UUID.randomUUID();
+    private final Set<String> publicTopics = Set.of("announcements");
+
+    @Test
+    void shouldAllowOwnTenantPublicAndUserDestinations() {
+        assertThat(maySubscribe(TenantDestinations.topic(tenantId, "orders"))).isTrue();
+        assertThat(maySubscribe("/topic/announcements")).isTrue();
+        assertThat(maySubscribe("/user/queue/notifications")).isTrue();
+    }
+
+    @Test
+    void shouldRejectOtherTenantsDestinations() {
+        assertThat(maySubscribe(TenantDestinations.topic(UUID.randomUUID(), "orders"))).isFalse();
+        assertThat(maySubscribe("/topic/tenant." + tenantId)).isFalse();
+        assertThat(maySubscribe("/topic/tenant." + tenantId + ".")).isFalse();
+        assertThat(TenantDestinations.maySubscribe(TenantDestinations.topic(tenantId, "orders"), null, publicTopics))
+                .isFalse();
+    }
+
+    @Test
+    void shouldRejectWildcardsMatchingOtherTenants() {
+        assertThat(maySubscribe("/topic/#")).isFalse();
+        assertThat(maySubscribe("/topic/*.*.*")).isFalse();
+        assertThat(maySubscribe("/topic/tenant.*.orders")).isFalse();
+        assertThat(maySubscribe("/topic/tenant." + tenantId + ".#")).isFalse();
+        assertThat(maySubscribe("/user/*")).isFalse();
+    }
+
+    @Test
+    void shouldRejectSystemAndUnknownDestinations() {
+        assertThat(maySubscribe("/topic/unresolved-user-destination")).isFalse();
+        assertThat(maySubscribe("/topic/simp-user-registry")).isFalse();
+        assertThat(maySubscribe("/topic/orders")).isFalse();
+        assertThat(maySubscribe("/exchange/amq.topic/tenant.x")).isFalse();
+        assertThat(maySubscribe("/queue/orders")).isFalse();
+        assertThat(maySubscribe(null)).isFalse();
+    }
+
+    @Test
+    void shouldOnlyAllowSendingToTheApplication() {
+        assertThat(TenantDestinations.maySend("/app/chat")).isTrue();
+        assertThat(TenantDestinations.maySend(TenantDestinations.topic(tenantId, "orders"))).isFalse();
+        assertThat(TenantDestinations.maySend("/user/someone/queue/notifications")).isFalse();
+        assertThat(TenantDestinations.maySend(null)).isFalse();
+    }
+
+    private boolean maySubscribe(String destination) {
+        return TenantDestinations.maySubscribe(destination, tenantId, publicTopics);
+    }
+}
@@ -0,0 +1,150 @@
+package io.preboot.refapp.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+class WebSocketPushServiceTest {
+    private final SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+    private final SimpUserRegistry userRegistry = mock(SimpUserRegistry.class);
+    private final WebSocketPushService pushService = new WebSocketPushService(
+            messagingTemplate,
+            userRegistry,
+            mock(JdbcTemplate.class),
+            mock(PostgresNotificationListener.class),
+            new ObjectMapper(),
+            Duration.ofMillis(50),
+            10,
+            Duration.ofMinutes(5));
+
+    @Test
+    void shouldCoalesceUpdatesOfTheSameKeyIntoOneFrame() {
+        // given
+        pushService.push("/topic/users", "1", Map.of("name", "first"));
+        pushService.push("/topic/users", "1", Map.of("name", "second"));
+        pushService.push("/topic/users", "2", Map.of("name", "other"));
+
+        // when
+        pushService.flush();
+
+        // then
+        List<WebSocketPushService.PushUpdate> updates = sentBatches("/topic/users", 1).getFirst().updates();
+        assertThat(updates).hasSize(2);
+        assertThat(updates.get(0).key()).isEqualTo("1");
+        assertThat(updates.get(0).full()).isEqualTo(Map.of("name", "second"));
+        assertThat(updates.get(1).key()).isEqualTo("2");
+    }
+
+    @Test
+    void shouldSendDeltaAgainstThePreviousVersion() {
+        // given
+        pushService.push("/topic/users", "1", Map.of("name", "John", "status", "ACTIVE", "note", "x"));
+        pushService.flush();
+
+        // when
+        pushService.push("/topic/users", "1", Map.of("name", "John", "status", "INACTIVE"));
+        pushService.flush();
+
+        // then
+        List<WebSocketPushService.PushBatch> batches = sentBatches("/topic/users", 2);
+        WebSocketPushService.PushUpdate first = batches.get(0).updates().getFirst();
+        WebSocketPushService.PushUpdate update = batches.get(1).updates().getFirst();
+        assertThat(update.full()).isNull();
+        assertThat(update.base()).isEqualTo(first.version());
+        assertThat(update.version()).isNotEqualTo(first.version());
+        assertThat(update.delta()).isEqualTo(Map.of("status", "INACTIVE"));
+        assertThat(update.removed()).containsExactly("note");
+    }
+
+    @Test
+    void shouldSendFullStateAfterSubscription() {
+        // given
+        pushService.push("/topic/users", "1", Map.of("name", "John"));
+        pushService.flush();
+
+        // when
+        pushService.onSubscribe(subscribeEvent("/topic/users", "session-2", null));
+        pushService.push("/topic/users", "1", Map.of("name", "Jane"));
+        pushService.flush();
+
+        // then
+        WebSocketPushService.PushUpdate update =
+                sentBatches("/topic/users", 2).get(1).updates().getFirst();
+        assertThat(update.full()).isEqualTo(Map.of("name", "Jane"));
+        assertThat(update.base()).isNull();
+    }
+
+    @Test
+    void shouldRateLimitFramesPerSession() {
+        // given
+        userHasSessions("user", "session-1", "session-2");
+        pushService.pushToUser("user", "/queue/notifications", "1", "first");
+        pushService.flush();
+
+        // when
+        pushService.pushToUser("user", "/queue/notifications", "1", "second");
+        pushService.flush();
+
+        // then
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.captor();
+        verify(messagingTemplate, times(2))
+                .convertAndSendToUser(eq("user"), eq("/queue/notifications"), any(), headers.capture());
+        assertThat(headers.getAllValues())
+                .extracting(SimpMessageHeaderAccessor::getSessionId)
+                .containsExactlyInAnyOrder("session-1", "session-2");
+    }
+
+    private void userHasSessions(String user, String... sessionIds) {
+        SimpUser simpUser = mock(SimpUser.class);
+        Set<SimpSession> sessions = new HashSet<>();
+        for (String sessionId : sessionIds) {
+            SimpSession session = mock(SimpSession.class);
+            when(session.getId()).thenReturn(sessionId);
+            sessions.add(session);
+        }
+        when(simpUser.getSessions()).thenReturn(sessions);
+        when(userRegistry.getUser(user)).thenReturn(simpUser);
+    }
+
+    private SessionSubscribeEvent subscribeEvent(String destination, String sessionId, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setSessionId(sessionId);
+        accessor.setUser(user);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        return new SessionSubscribeEvent(this, message, user);
+    }
+
+    private List<WebSocketPushService.PushBatch> sentBatches(String destination, int count) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(count)).convertAndSend(eq(destination), captor.capture());
+        return captor.getAllValues().stream()
+                .map(WebSocketPushService.PushBatch.class::cast)
+                .toList();
+    }
+}
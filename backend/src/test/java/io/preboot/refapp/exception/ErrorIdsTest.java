@@ -0,0 +1,48 @@
+package io.preboot.refapp.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ErrorIdsTest {
+
+    @Test
+    void shouldGenerateVersion7Ids() {
+        // when
+        UUID id = ErrorIds.next();
+
+        // then
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldOrderIdsByCreationTime() throws InterruptedException {
+        // given
+        UUID first = ErrorIds.next();
+        Thread.sleep(2);
+
+        // when
+        UUID second = ErrorIds.next();
+
+        // then
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void shouldGenerateUniqueIds() {
+        // given
+        Set<UUID> ids = new HashSet<>();
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(ErrorIds.next());
+        }
+
+        // then
+        assertThat(ids).hasSize(10_000);
+    }
+}
@@ -0,0 +1,60 @@
+package io.preboot.refapp.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BulkTableTest {
+    private record Item(UUID id, Long version, String name, int quantity) {}
+
+    private final BulkTable<Item> table = BulkTable.<Item>builder("item", "tenant_id")
+            .id("id", UUID.class, Item::id)
+            .version("version", Item::version)
+            .column("name", Item::name)
+            .column("quantity", Item::quantity)
+            .build();
+
+    @Test
+    void shouldInsertTenantFromParameter() {
+        // when
+        String sql = table.insertSql();
+
+        // then
+        assertThat(sql)
+                .isEqualTo("INSERT INTO item (tenant_id, id, version, name, quantity)"
+                        + " VALUES (:bulkTenantId, :id, :version, :name, :quantity)");
+    }
+
+    @Test
+    void shouldUpdateOnlyRowsOfTenantAtExpectedVersion() {
+        // when
+        String sql = table.updateSql();
+
+        // then
+        assertThat(sql)
+                .isEqualTo("UPDATE item AS target SET name = changed.name, quantity = changed.quantity,"
+                        + " version = target.version + 1"
+                        + " FROM jsonb_populate_recordset(NULL::item, CAST(:bulkRows AS jsonb)) AS changed"
+                        + " WHERE target.id = changed.id AND target.version = changed.version"
+                        + " AND target.tenant_id = :bulkTenantId RETURNING target.id");
+    }
+
+    @Test
+    void shouldInsertMissingVersionAsZero() {
+        // given
+        UUID id = UUID.randomUUID();
+
+        // when / then
+        assertThat(table.values(new Item(id, null, "Bolt", 3)))
+                .containsExactly(entry("id", id), entry("version", 0L), entry("name", "Bolt"), entry("quantity", 3));
+    }
+
+    @Test
+    void shouldRejectMappingTheTenantColumn() {
+        assertThatThrownBy(() -> BulkTable.<Item>builder("item", "tenant_id").column("tenant_id", Item::id))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
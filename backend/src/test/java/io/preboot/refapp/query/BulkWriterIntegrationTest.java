@@ -0,0 +1,109 @@
+package io.preboot.refapp.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.preboot.refapp.config.AbstractIntegrationTest;
+import io.preboot.securedata.context.SecurityContext;
+import io.preboot.securedata.context.SecurityContextProvider;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkWriterIntegrationTest extends AbstractIntegrationTest {
+    private static final UUID TENANT_ID = UUID.randomUUID();
+    private static final UUID OTHER_TENANT_ID = UUID.randomUUID();
+
+    // an integer id column mapped to Long ids: the returned ids are only equal to the rows' ids once converted
+    private record Item(Long id, Long version, String name) {}
+
+    private static final BulkTable<Item> ITEMS = BulkTable.<Item>builder("bulk_writer_item", "tenant_id")
+            .id("id", Long.class, Item::id)
+            .version("version", Item::version)
+            .column("name", Item::name)
+            .build();
+
+    @Autowired
+    private BulkWriter bulkWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private SecurityContextProvider securityContextProvider;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS bulk_writer_item (id integer PRIMARY KEY,"
+                + " tenant_id uuid NOT NULL, version bigint NOT NULL, name text NOT NULL)");
+        jdbcTemplate.execute("TRUNCATE bulk_writer_item");
+    }
+
+    @Test
+    void shouldUpdateRowsAtExpectedVersion() {
+        // given
+        actAsTenant(TENANT_ID);
+        bulkWriter.insert(ITEMS, List.of(new Item(1L, null, "Bolt"), new Item(2L, null, "Nut")));
+
+        // when
+        BulkUpdateResult result =
+                bulkWriter.update(ITEMS, List.of(new Item(1L, 0L, "Screw"), new Item(2L, 0L, "Washer")));
+
+        // then
+        assertThat(result.updated()).isEqualTo(2);
+        assertThat(result.conflicts()).isEmpty();
+        assertThat(jdbcTemplate.queryForList(
+                        "SELECT name FROM bulk_writer_item WHERE version = 1 ORDER BY id", String.class))
+                .containsExactly("Screw", "Washer");
+    }
+
+    @Test
+    void shouldReportStaleVersionAsConflict() {
+        // given
+        actAsTenant(TENANT_ID);
+        bulkWriter.insert(ITEMS, List.of(new Item(1L, null, "Bolt"), new Item(2L, null, "Nut")));
+        bulkWriter.update(ITEMS, List.of(new Item(1L, 0L, "Screw")));
+
+        // when
+        BulkUpdateResult result =
+                bulkWriter.update(ITEMS, List.of(new Item(1L, 0L, "Rivet"), new Item(2L, 0L, "Washer")));
+
+        // then
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.conflicts()).containsExactly(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM bulk_writer_item WHERE id = 1", String.class))
+                .isEqualTo("Screw");
+    }
+
+    @Test
+    void shouldReportRowOfAnotherTenantAsConflict() {
+        // given
+        actAsTenant(OTHER_TENANT_ID);
+        bulkWriter.insert(ITEMS, List.of(new Item(1L, null, "Bolt")));
+        actAsTenant(TENANT_ID);
+
+        // when
+        BulkUpdateResult result = bulkWriter.update(ITEMS, List.of(new Item(1L, 0L, "Screw")));
+
+        // then
+        assertThat(result.updated()).isZero();
+        assertThat(result.conflicts()).containsExactly(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM bulk_writer_item WHERE id = 1", Long.class))
+                .isZero();
+    }
+
+    private void actAsTenant(UUID tenantId) {
+        SecurityContext securityContext = mock(SecurityContext.class);
+        when(securityContext.getTenantId()).thenReturn(tenantId);
+        when(securityContextProvider.getCurrentContext()).thenReturn(securityContext);
+    }
+}
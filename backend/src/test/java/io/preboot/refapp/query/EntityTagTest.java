@@ -0,0 +1,131 @@
+package io.preboot.refapp.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+class EntityTagTest {
+    private record Item(@Id Long id, @Version Long version, String name) {}
+
+    private record Unversioned(@Id Long id, String name) {}
+
+    private static class BaseEntity {
+        @Id
+        private final Long id;
+
+        @Version
+        private final Long version;
+
+        BaseEntity(Long id, Long version) {
+            this.id = id;
+            this.version = version;
+        }
+    }
+
+    private static class Order extends BaseEntity {
+        private final String status;
+
+        Order(Long id, Long version, String status) {
+            super(id, version);
+            this.status = status;
+        }
+    }
+
+    @Test
+    void shouldTagSameIdsAndVersionsAlike() {
+        // when
+        String tag = EntityTag.of(List.of(new Item(1L, 0L, "Bolt"), new Item(2L, 3L, "Nut")));
+
+        // then
+        assertThat(tag).matches("\"[0-9a-f]{32}\"");
+        assertThat(EntityTag.of(List.of(new Item(1L, 0L, "Screw"), new Item(2L, 3L, "Washer"))))
+                .as("fields other than id and version are not part of the tag")
+                .isEqualTo(tag);
+    }
+
+    @Test
+    void shouldChangeTagWithVersion() {
+        // when
+        String before = EntityTag.of(List.of(new Item(1L, 0L, "Bolt")));
+        String after = EntityTag.of(List.of(new Item(1L, 1L, "Bolt")));
+
+        // then
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    void shouldChangeTagWithSetOfEntities() {
+        // given
+        String tag = EntityTag.of(List.of(new Item(1L, 0L, "Bolt"), new Item(2L, 0L, "Nut")));
+
+        // when / then
+        assertThat(EntityTag.of(List.of(new Item(1L, 0L, "Bolt")))).isNotEqualTo(tag);
+        assertThat(EntityTag.of(List.of(new Item(1L, 0L, "Bolt"), new Item(2L, 0L, "Nut"), new Item(3L, 0L, "Pin"))))
+                .isNotEqualTo(tag);
+        assertThat(EntityTag.of(List.of())).isNotEqualTo(tag);
+    }
+
+    @Test
+    void shouldSeparateIdFromVersion() {
+        // when
+        String tag = EntityTag.of(List.of(new Item(1L, 12L, "Bolt")));
+
+        // then
+        assertThat(EntityTag.of(List.of(new Item(11L, 2L, "Bolt")))).isNotEqualTo(tag);
+    }
+
+    @Test
+    void shouldReadInheritedIdAndVersion() {
+        // when
+        String tag = EntityTag.of(List.of(new Order(1L, 4L, "OPEN")));
+
+        // then
+        assertThat(tag).isEqualTo(EntityTag.of(List.of(new Item(1L, 4L, "Bolt"))));
+    }
+
+    @Test
+    void shouldChangeTagWithNextCursorAndTotalOfPage() {
+        // given
+        List<Item> content = List.of(new Item(1L, 0L, "Bolt"));
+        PageTotal total = new PageTotal(10, PageTotal.Accuracy.EXACT);
+        String tag = EntityTag.of(new KeysetPage<>(content, "cursor-1", total));
+
+        // when / then
+        assertThat(EntityTag.of(new KeysetPage<>(content, "cursor-1", total))).isEqualTo(tag);
+        assertThat(EntityTag.of(new KeysetPage<>(content, "cursor-2", total))).isNotEqualTo(tag);
+        assertThat(EntityTag.of(new KeysetPage<>(content, null, total))).isNotEqualTo(tag);
+        assertThat(EntityTag.of(new KeysetPage<>(content, "cursor-1", new PageTotal(11, PageTotal.Accuracy.EXACT))))
+                .isNotEqualTo(tag);
+        assertThat(EntityTag.of(content)).isNotEqualTo(tag);
+    }
+
+    @Test
+    void shouldRejectEntityWithoutVersion() {
+        // when / then
+        assertThatThrownBy(() -> EntityTag.of(List.of(new Unversioned(1L, "Bolt"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("@Version");
+    }
+
+    @Test
+    void shouldRespondWithTagAndPrivateRevalidation() {
+        // given
+        List<Item> items = List.of(new Item(1L, 0L, "Bolt"));
+        String tag = EntityTag.of(items);
+
+        // when
+        ResponseEntity<List<Item>> response = EntityTag.response(tag, items);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo(tag);
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache, private");
+        assertThat(response.getBody()).isSameAs(items);
+    }
+}
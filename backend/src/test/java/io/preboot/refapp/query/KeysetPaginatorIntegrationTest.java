@@ -0,0 +1,260 @@
+package io.preboot.refapp.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.preboot.refapp.config.AbstractIntegrationTest;
+import io.preboot.securedata.context.SecurityContext;
+import io.preboot.securedata.context.SecurityContextProvider;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@SpringBootTest(properties = "app.query.count-cap=10")
+@ActiveProfiles("test")
+class KeysetPaginatorIntegrationTest extends AbstractIntegrationTest {
+    private static final UUID TENANT_ID = UUID.randomUUID();
+    private static final UUID OTHER_TENANT_ID = UUID.randomUUID();
+    private static final Instant CREATED_AT = Instant.parse("2026-10-17T08:00:00.123456Z");
+    private static final int ROWS = 25;
+
+    private static final KeysetQuery NEWEST_FIRST = KeysetQuery.builder("keyset_item", "tenant_id")
+            .readPermission("items.read")
+            .field("id", "id")
+            .field("name", "name")
+            .field("quantity", "quantity")
+            .field("createdAt", "created_at")
+            .orderBy("createdAt", true)
+            .orderBy("id", true)
+            .build();
+
+    // mixed directions, so pages continue through the expanded seek condition instead of the row comparison
+    private static final KeysetQuery OLDEST_FIRST = KeysetQuery.builder("keyset_item", "tenant_id")
+            .readPermission("items.read")
+            .field("id", "id")
+            .field("name", "name")
+            .field("quantity", "quantity")
+            .field("createdAt", "created_at")
+            .orderBy("createdAt", false)
+            .orderBy("id", true)
+            .build();
+
+    private static final RowMapper<String> NAME = (resultSet, rowNum) -> resultSet.getString("name");
+
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private KeysetSqlCache sqlCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private SecurityContextProvider securityContextProvider;
+
+    private final List<UUID> ids = new ArrayList<>(); // of the tenant's rows, by quantity
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS keyset_item (id uuid PRIMARY KEY, tenant_id uuid NOT NULL,"
+                + " name text NOT NULL, quantity integer NOT NULL, created_at timestamptz NOT NULL)");
+        jdbcTemplate.execute("TRUNCATE keyset_item");
+        // two rows per timestamp, so the order within a pair and where pages split it is decided by the uuid
+        for (int i = 0; i < ROWS; i++) {
+            final UUID id = UUID.randomUUID();
+            ids.add(id);
+            insert(id, TENANT_ID, "item %02d".formatted(i), i);
+            insert(UUID.randomUUID(), OTHER_TENANT_ID, "other %02d".formatted(i), i);
+        }
+        jdbcTemplate.execute("ANALYZE keyset_item");
+        actAsTenant(TENANT_ID);
+    }
+
+    @Test
+    void shouldPageThroughTimestampAndUuidSortKeys() {
+        // when
+        List<List<String>> pages = pages(NEWEST_FIRST, List.of(), 10);
+
+        // then
+        assertThat(pages).extracting(List::size).containsExactly(10, 10, 5);
+        assertThat(pages.stream().flatMap(List::stream))
+                .containsExactlyElementsOf(jdbcTemplate.queryForList(
+                        "SELECT name FROM keyset_item WHERE tenant_id = ? ORDER BY created_at DESC, id DESC",
+                        String.class,
+                        TENANT_ID));
+    }
+
+    @Test
+    void shouldPageThroughMixedSortDirections() {
+        // when
+        List<List<String>> pages = pages(OLDEST_FIRST, List.of(KeysetFilter.ge("quantity", 4)), 3);
+
+        // then
+        assertThat(pages).hasSize(7);
+        assertThat(pages.stream().flatMap(List::stream))
+                .containsExactlyElementsOf(jdbcTemplate.queryForList(
+                        "SELECT name FROM keyset_item WHERE tenant_id = ? AND quantity >= 4"
+                                + " ORDER BY created_at ASC, id DESC",
+                        String.class,
+                        TENANT_ID));
+    }
+
+    @Test
+    void shouldBindInFilterValuesAsOneArray() {
+        // given
+        UUID otherTenantsId = jdbcTemplate.queryForObject(
+                "SELECT id FROM keyset_item WHERE tenant_id = ? LIMIT 1", UUID.class, OTHER_TENANT_ID);
+
+        // when
+        KeysetPage<String> byIds = keysetPaginator.page(
+                NEWEST_FIRST,
+                List.of(KeysetFilter.in("id", List.of(ids.get(3), ids.get(11), ids.get(7), otherTenantsId))),
+                null,
+                10,
+                NAME,
+                PageMode.NONE);
+        KeysetPage<String> byNamesAndQuantities = keysetPaginator.page(
+                NEWEST_FIRST,
+                List.of(
+                        KeysetFilter.in("name", List.of("item 01", "item 02", "item 20")),
+                        KeysetFilter.in("quantity", List.of(1, 20, 21))),
+                null,
+                10,
+                NAME,
+                PageMode.NONE);
+
+        // then
+        assertThat(byIds.content()).containsExactly("item 11", "item 07", "item 03");
+        assertThat(byNamesAndQuantities.content()).containsExactly("item 20", "item 01");
+    }
+
+    @Test
+    void shouldCountTotalAsRequestedByPageMode() {
+        // given
+        List<KeysetFilter> filters = List.of(KeysetFilter.ge("quantity", 5));
+
+        // when
+        KeysetPage<String> uncounted = keysetPaginator.page(NEWEST_FIRST, filters, null, 5, NAME, PageMode.NONE);
+        KeysetPage<String> exact = keysetPaginator.page(NEWEST_FIRST, filters, null, 5, NAME, PageMode.EXACT);
+        KeysetPage<String> capped = keysetPaginator.page(NEWEST_FIRST, filters, null, 5, NAME, PageMode.CAPPED);
+        KeysetPage<String> estimated =
+                keysetPaginator.page(NEWEST_FIRST, filters, null, 5, NAME, PageMode.ESTIMATED);
+
+        // then
+        assertThat(uncounted.total()).isNull();
+        assertThat(exact.total()).isEqualTo(new PageTotal(20, PageTotal.Accuracy.EXACT));
+        assertThat(capped.total())
+                .as("counting stops at app.query.count-cap")
+                .isEqualTo(new PageTotal(10, PageTotal.Accuracy.AT_LEAST));
+        assertThat(estimated.total().accuracy()).isEqualTo(PageTotal.Accuracy.ESTIMATED);
+        assertThat(estimated.total().count())
+                .as("planner estimate after ANALYZE, the filters bound into EXPLAIN")
+                .isBetween(10L, 25L);
+    }
+
+    @Test
+    void shouldEstimateTotalWithArrayBoundIntoExplain() {
+        // when
+        KeysetPage<String> page = keysetPaginator.page(
+                NEWEST_FIRST,
+                List.of(KeysetFilter.in("id", ids.subList(0, 3))),
+                null,
+                2,
+                NAME,
+                PageMode.ESTIMATED);
+
+        // then
+        assertThat(page.content()).hasSize(2);
+        assertThat(page.total().accuracy()).isEqualTo(PageTotal.Accuracy.ESTIMATED);
+        assertThat(page.total().count()).isBetween(1L, 3L);
+    }
+
+    @Test
+    void shouldCountBelowCapExactlyAndSkipCountWhenFirstPageHoldsAll() {
+        // given
+        List<KeysetFilter> filters = List.of(KeysetFilter.ge("quantity", 20));
+
+        // when
+        KeysetPage<String> belowCap = keysetPaginator.page(NEWEST_FIRST, filters, null, 2, NAME, PageMode.CAPPED);
+        KeysetPage<String> allOnFirstPage =
+                keysetPaginator.page(NEWEST_FIRST, filters, null, 10, NAME, PageMode.ESTIMATED);
+
+        // then
+        assertThat(belowCap.total()).isEqualTo(new PageTotal(5, PageTotal.Accuracy.EXACT));
+        assertThat(allOnFirstPage.total())
+                .as("taken from the page, not estimated")
+                .isEqualTo(new PageTotal(5, PageTotal.Accuracy.EXACT));
+    }
+
+    @Test
+    void shouldShareCachedSqlAcrossFilterOrderAndValues() {
+        // given
+        KeysetSqlCache.Stats before = sqlCache.stats();
+
+        // when
+        KeysetPage<String> first = keysetPaginator.page(
+                OLDEST_FIRST,
+                List.of(KeysetFilter.like("name", "item 1%"), KeysetFilter.lt("quantity", 13)),
+                null,
+                10,
+                NAME,
+                PageMode.NONE);
+        KeysetPage<String> second = keysetPaginator.page(
+                OLDEST_FIRST,
+                List.of(KeysetFilter.lt("quantity", 22), KeysetFilter.like("name", "item 2%")),
+                null,
+                10,
+                NAME,
+                PageMode.NONE);
+
+        // then
+        assertThat(first.content()).containsExactlyInAnyOrder("item 10", "item 11", "item 12");
+        assertThat(second.content()).containsExactlyInAnyOrder("item 20", "item 21");
+        KeysetSqlCache.Stats after = sqlCache.stats();
+        assertThat(after.misses() - before.misses()).isEqualTo(1);
+        assertThat(after.hits() - before.hits()).isEqualTo(1);
+        assertThat(after.size() - before.size()).isEqualTo(1);
+    }
+
+    private List<List<String>> pages(KeysetQuery query, List<KeysetFilter> filters, int size) {
+        final List<List<String>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            final KeysetPage<String> page = keysetPaginator.page(query, filters, cursor, size, NAME, PageMode.NONE);
+            pages.add(page.content());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return pages;
+    }
+
+    private void insert(UUID id, UUID tenantId, String name, int quantity) {
+        jdbcTemplate.update(
+                "INSERT INTO keyset_item (id, tenant_id, name, quantity, created_at) VALUES (?, ?, ?, ?, ?)",
+                id,
+                tenantId,
+                name,
+                quantity,
+                Timestamp.from(CREATED_AT.plus(Duration.ofMinutes(quantity / 2))));
+    }
+
+    private void actAsTenant(UUID tenantId) {
+        SecurityContext securityContext = mock(SecurityContext.class);
+        when(securityContext.getTenantId()).thenReturn(tenantId);
+        when(securityContext.getPermissions()).thenReturn(Set.of("items.read"));
+        when(securityContextProvider.getCurrentContext()).thenReturn(securityContext);
+    }
+}
@@ -0,0 +1,127 @@
+package io.preboot.refapp.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class KeysetQueryTest {
+    private final KeysetQuery.Builder builder = KeysetQuery.builder("organization", "tenant_id")
+            .readPermission("organization.read")
+            .field("id", "id")
+            .field("name", "name")
+            .field("createdAt", "created_at");
+
+    @Test
+    void shouldSeekWithRowValueComparisonWhenAllKeysSortTheSameWay() {
+        // given
+        KeysetQuery query = builder.where("name LIKE :name", Map.of("name", "A%"))
+                .orderBy("createdAt", true)
+                .orderBy("id", true)
+                .build();
+
+        // when
+        String sql = query.sql(true, true);
+
+        // then
+        assertThat(sql)
+                .isEqualTo("SELECT id AS \"id\", name AS \"name\", created_at AS \"createdAt\" FROM organization"
+                        + " WHERE tenant_id = :keysetTenantId AND (name LIKE :name)"
+                        + " AND (created_at, id) < (:keysetCursor0, :keysetCursor1)"
+                        + " ORDER BY created_at DESC, id DESC LIMIT :keysetLimit");
+    }
+
+    @Test
+    void shouldExpandSeekConditionForMixedSortDirections() {
+        // given
+        KeysetQuery query = builder.orderBy("name", false).orderBy("id", true).build();
+
+        // when
+        String sql = query.sql(true, false);
+
+        // then
+        assertThat(sql)
+                .endsWith(" AND ((name > :keysetCursor0) OR (name = :keysetCursor0 AND id < :keysetCursor1))"
+                        + " ORDER BY name ASC, id DESC");
+    }
+
+    @Test
+    void shouldCountOnlyUpToTheCapInCappedMode() {
+        // given
+        KeysetQuery query = builder.where("name LIKE :name", Map.of("name", "A%"))
+                .orderBy("id", false)
+                .build();
+
+        // when
+        String sql = query.countSql(PageMode.CAPPED);
+
+        // then
+        assertThat(sql)
+                .isEqualTo("SELECT count(*) FROM (SELECT 1 FROM organization"
+                        + " WHERE tenant_id = :keysetTenantId AND (name LIKE :name) LIMIT :keysetCountCap) capped");
+    }
+
+    @Test
+    void shouldBuildSameSqlForFiltersInAnyOrder() {
+        // given
+        KeysetQuery query = builder.orderBy("id", false).build();
+        List<KeysetFilter> filters = List.of(
+                KeysetFilter.in("id", List.of(UUID.randomUUID(), UUID.randomUUID())), KeysetFilter.like("name", "A%"));
+
+        // when
+        String sql = query.sql(query.canonical(filters), false, true);
+        String reversedSql = query.sql(query.canonical(filters.reversed()), false, true);
+
+        // then
+        assertThat(sql)
+                .isEqualTo(reversedSql)
+                .isEqualTo("SELECT id AS \"id\", name AS \"name\", created_at AS \"createdAt\" FROM organization"
+                        + " WHERE tenant_id = :keysetTenantId AND id = ANY (:keysetFilter0)"
+                        + " AND name LIKE :keysetFilter1 ORDER BY id ASC LIMIT :keysetLimit");
+    }
+
+    @Test
+    void shouldRejectFilterOnUndeclaredField() {
+        KeysetQuery query = builder.orderBy("id", false).build();
+
+        assertThatThrownBy(() -> query.canonical(List.of(KeysetFilter.eq("password", "secret"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectSortingByUndeclaredField() {
+        assertThatThrownBy(() -> builder.orderBy("password", false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRequireReadPermission() {
+        assertThatThrownBy(() -> KeysetQuery.builder("organization", "tenant_id")
+                        .field("id", "id")
+                        .orderBy("id", false)
+                        .build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("read permission");
+    }
+
+    @Test
+    void shouldRoundTripCursorValues() {
+        // given
+        List<Object> values = List.of(Timestamp.from(Instant.parse("2026-10-17T10:15:30.123456Z")), UUID.randomUUID());
+
+        // when
+        List<Object> decoded = KeysetCursor.decode(KeysetCursor.encode(values), 2);
+
+        // then
+        assertThat(decoded).isEqualTo(values);
+    }
+
+    @Test
+    void shouldRejectTamperedCursor() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not-a-cursor", 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,171 @@
+package io.preboot.refapp.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.preboot.refapp.config.AbstractIntegrationTest;
+import io.preboot.refapp.exception.TooManyRequestsException;
+import io.preboot.securedata.context.SecurityContext;
+import io.preboot.securedata.context.SecurityContextProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@SpringBootTest(properties = {"app.query.export.max-concurrent=2", "app.query.export.fetch-size=100"})
+@ActiveProfiles("test")
+class StreamingExporterIntegrationTest extends AbstractIntegrationTest {
+    private static final UUID TENANT_ID = UUID.randomUUID();
+    private static final UUID OTHER_TENANT_ID = UUID.randomUUID();
+    private static final int ROWS = 2000; // well beyond the writers' buffers and several fetches
+
+    private static final KeysetQuery ITEMS = KeysetQuery.builder("export_item", "tenant_id")
+            .readPermission("items.read")
+            .field("id", "id")
+            .field("name", "name")
+            .field("createdAt", "created_at")
+            .orderBy("createdAt", false)
+            .orderBy("id", false)
+            .build();
+
+    @Autowired
+    private StreamingExporter streamingExporter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private SecurityContextProvider securityContextProvider;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS export_item (id uuid PRIMARY KEY, tenant_id uuid NOT NULL,"
+                + " name text NOT NULL, created_at timestamptz NOT NULL)");
+        jdbcTemplate.execute("TRUNCATE export_item");
+        insert(TENANT_ID, ROWS);
+        insert(OTHER_TENANT_ID, 10);
+        actAsTenant(TENANT_ID);
+    }
+
+    @Test
+    void shouldStreamTenantRowsAsCsv() throws IOException {
+        // when
+        ResponseEntity<StreamingResponseBody> response = streamingExporter.export(ITEMS, ExportFormat.CSV, "items");
+        String csv = write(response.getBody());
+
+        // then
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .isEqualTo("attachment; filename=\"items.csv\"");
+        List<String> lines = csv.lines().toList();
+        assertThat(lines).hasSize(ROWS + 1);
+        assertThat(lines.getFirst()).isEqualTo("id,name,createdAt");
+        assertThat(lines.get(1)).endsWith(",\"item, 1\",2026-10-17T08:01:00Z");
+        assertThat(lines.getLast()).endsWith(",\"item, " + ROWS + "\",2026-10-18T17:20:00Z");
+    }
+
+    @Test
+    void shouldStreamTenantRowsAsNdjson() throws IOException {
+        // when
+        String ndjson = write(streamingExporter.export(ITEMS, ExportFormat.NDJSON, "items").getBody());
+
+        // then
+        List<JsonNode> rows = ndjson.lines().map(this::readTree).toList();
+        assertThat(rows).hasSize(ROWS);
+        assertThat(rows.getFirst().get("name").asText()).isEqualTo("item, 1");
+        assertThat(UUID.fromString(rows.getFirst().get("id").asText())).isNotNull();
+        assertThat(rows.getLast().get("name").asText()).isEqualTo("item, " + ROWS);
+    }
+
+    @Test
+    void shouldReleasePermitWhenClientDisconnects() throws IOException {
+        // given
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        // when: more disconnected exports than max-concurrent, one after the other
+        for (ExportFormat format : List.of(ExportFormat.CSV, ExportFormat.NDJSON, ExportFormat.CSV)) {
+            StreamingResponseBody body = streamingExporter.export(ITEMS, format, "items").getBody();
+            assertThatThrownBy(() -> body.writeTo(disconnected))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Broken pipe");
+        }
+
+        // then
+        String csv = write(streamingExporter.export(ITEMS, ExportFormat.CSV, "items").getBody());
+        assertThat(csv.lines()).hasSize(ROWS + 1);
+        assertThat(jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM pg_stat_activity WHERE state LIKE 'idle in transaction%'",
+                        Integer.class))
+                .as("the export transactions were rolled back")
+                .isZero();
+    }
+
+    @Test
+    void shouldRejectExportsBeyondMaxConcurrent() throws IOException {
+        // given
+        StreamingResponseBody first = streamingExporter.export(ITEMS, ExportFormat.CSV, "items").getBody();
+        StreamingResponseBody second = streamingExporter.export(ITEMS, ExportFormat.NDJSON, "items").getBody();
+
+        // when / then
+        assertThatThrownBy(() -> streamingExporter.export(ITEMS, ExportFormat.CSV, "items"))
+                .isInstanceOf(TooManyRequestsException.class);
+        write(first);
+        write(second);
+        assertThat(write(streamingExporter.export(ITEMS, ExportFormat.CSV, "items").getBody()).lines())
+                .hasSize(ROWS + 1);
+    }
+
+    private static String write(StreamingResponseBody body) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // names with a comma, so the CSV cells are quoted
+    private void insert(UUID tenantId, int rows) {
+        jdbcTemplate.update(
+                "INSERT INTO export_item (id, tenant_id, name, created_at) SELECT gen_random_uuid(), ?, 'item, ' || n,"
+                        + " timestamptz '2026-10-17 08:00:00Z' + n * interval '1 minute' FROM generate_series(1, ?) n",
+                tenantId,
+                rows);
+    }
+
+    private void actAsTenant(UUID tenantId) {
+        SecurityContext securityContext = mock(SecurityContext.class);
+        when(securityContext.getTenantId()).thenReturn(tenantId);
+        when(securityContext.getPermissions()).thenReturn(Set.of("items.read"));
+        when(securityContextProvider.getCurrentContext()).thenReturn(securityContext);
+    }
+}
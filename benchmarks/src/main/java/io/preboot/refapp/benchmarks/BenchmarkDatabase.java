@@ -0,0 +1,61 @@
+package io.preboot.refapp.benchmarks;
+
+import java.util.Map;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+// Postgres used by database backed benchmarks: a throwaway container by default, or an existing database when
+// BENCHMARK_DATABASE_URL is set (useful to benchmark against production-like hardware).
+public final class BenchmarkDatabase implements AutoCloseable {
+    private final PostgreSQLContainer<?> container;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private BenchmarkDatabase(PostgreSQLContainer<?> container, String url, String username, String password) {
+        this.container = container;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    public static BenchmarkDatabase start() {
+        final String url = System.getenv("BENCHMARK_DATABASE_URL");
+        if (url != null) {
+            return new BenchmarkDatabase(
+                    null,
+                    url,
+                    System.getenv().getOrDefault("BENCHMARK_DATABASE_USERNAME", "postgres"),
+                    System.getenv().getOrDefault("BENCHMARK_DATABASE_PASSWORD", ""));
+        }
+        final PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:15-alpine");
+        container.start();
+        return new BenchmarkDatabase(
+                container, container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+
+    public String url() {
+        return url;
+    }
+
+    public String username() {
+        return username;
+    }
+
+    public String password() {
+        return password;
+    }
+
+    public Map<String, Object> springProperties() {
+        return Map.of(
+                "spring.datasource.url", url,
+                "spring.datasource.username", username,
+                "spring.datasource.password", password);
+    }
+
+    @Override
+    public void close() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.preboot.refapp.benchmarks.eventbus;
+
+import io.preboot.eventbus.EventHandler;
+import io.preboot.eventbus.EventPublisher;
+import io.preboot.eventbus.LocalAsynchronousEventPublisher;
+import io.preboot.eventbus.LocalEventHandlerRepository;
+import io.preboot.eventbus.LocalEventPublisher;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+// Publish fan-out cost of the two publishers configured in EventBusConfig as the number of handlers grows.
+// The asynchronous variant waits until every handler ran, so both report publish-to-delivery time.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EventPublisherBenchmark {
+    @Param({"1", "8", "64"})
+    private int handlers;
+
+    private GenericApplicationContext applicationContext;
+    private EventPublisher synchronousPublisher;
+    private EventPublisher asynchronousPublisher;
+
+    @Setup
+    public void setUp() {
+        applicationContext = new GenericApplicationContext();
+        for (int i = 0; i < handlers; i++) {
+            applicationContext.registerBean("handler" + i, BenchmarkEventHandler.class, BenchmarkEventHandler::new);
+        }
+        applicationContext.refresh();
+
+        final LocalEventHandlerRepository repository = new LocalEventHandlerRepository(applicationContext);
+        synchronousPublisher = new LocalEventPublisher(repository);
+        asynchronousPublisher =
+                new LocalAsynchronousEventPublisher(repository, new VirtualThreadTaskExecutor("benchmark-async"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public void synchronousFanOut() {
+        final BenchmarkEvent event = new BenchmarkEvent(new CountDownLatch(handlers));
+        synchronousPublisher.publish(event);
+    }
+
+    @Benchmark
+    public void asynchronousFanOut() throws InterruptedException {
+        final BenchmarkEvent event = new BenchmarkEvent(new CountDownLatch(handlers));
+        asynchronousPublisher.publish(event);
+        if (!event.delivered().await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Asynchronous event was not delivered to all handlers");
+        }
+    }
+
+    public record BenchmarkEvent(CountDownLatch delivered) {}
+
+    @Component
+    public static class BenchmarkEventHandler {
+        @EventHandler
+        public void onBenchmarkEvent(BenchmarkEvent event) {
+            event.delivered().countDown();
+        }
+    }
+}
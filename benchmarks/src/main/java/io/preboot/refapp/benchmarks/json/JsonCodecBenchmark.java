@@ -0,0 +1,107 @@
+package io.preboot.refapp.benchmarks.json;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import io.preboot.core.json.JsonMapperFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Event payload round trip and list response writing with the Preboot JsonMapper as configured before (reflection,
+// per thread buffers) and in the backend's JsonMapperConfig (Blackbird, shared buffer pool), plus the CBOR encoding of
+// PayloadCodec. Payload sizes are reported by a run with -prof gc as allocation per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JsonCodecBenchmark {
+    @Param({"default", "blackbird", "cbor"})
+    private String codec;
+
+    private ObjectMapper mapper;
+    private OrderPlaced event;
+    private byte[] encodedEvent;
+    private List<OrderPlaced> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = switch (codec) {
+            case "default" -> JsonMapperFactory.createJsonMapper().getObjectMapper();
+            case "blackbird" -> tuned(JsonMapperFactory.createJsonMapper().getObjectMapper());
+            case "cbor" -> tuned(CBORMapper.builder()
+                    .findAndAddModules()
+                    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .build());
+            default -> throw new IllegalArgumentException(codec);
+        };
+        event = order(0);
+        encodedEvent = mapper.writeValueAsBytes(event);
+        page = IntStream.range(0, 100).mapToObj(JsonCodecBenchmark::order).toList();
+    }
+
+    @Benchmark
+    public byte[] writeEvent() throws IOException {
+        return mapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public OrderPlaced readEvent() throws IOException {
+        return mapper.readValue(encodedEvent, OrderPlaced.class);
+    }
+
+    // a list response of 100 rows streamed to the servlet output stream
+    @Benchmark
+    public void writePage() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    // same settings as the backend's JsonMapperConfig and PayloadCodec
+    private static ObjectMapper tuned(ObjectMapper mapper) {
+        mapper.registerModule(new BlackbirdModule());
+        mapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedConcurrentDequePool());
+        return mapper;
+    }
+
+    private static OrderPlaced order(int index) {
+        return new OrderPlaced(
+                UUID.randomUUID(),
+                UUID.randomUUID(),
+                "ORD-" + index,
+                "customer" + index + "@example.com",
+                new BigDecimal("1249.90"),
+                "EUR",
+                Instant.parse("2026-10-17T10:15:30Z"),
+                List.of("express", "gift"));
+    }
+
+    public record OrderPlaced(
+            UUID id,
+            UUID tenantId,
+            String number,
+            String customerEmail,
+            BigDecimal amount,
+            String currency,
+            Instant placedAt,
+            List<String> tags) {}
+}
@@ -0,0 +1,204 @@
+package io.preboot.refapp.benchmarks.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.preboot.refapp.benchmarks.BenchmarkDatabase;
+import io.preboot.refapp.query.BulkTable;
+import io.preboot.refapp.query.BulkUpdateResult;
+import io.preboot.refapp.query.BulkWriter;
+import io.preboot.securedata.context.SecurityContext;
+import io.preboot.securedata.context.SecurityContextProvider;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Writing a batch of tenant rows one statement per row (what saving entities one by one through SecureRepository
+// amounts to) against the backend's BulkWriter: a rewritten JDBC insert batch, and one versioned multi-row UPDATE
+// through jsonb_populate_recordset. Each operation writes all rows in one transaction.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BulkWriteBenchmark {
+    private static final String INSERT = "INSERT INTO bulk_item (tenant_id, id, version, name, quantity, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_ROW = "UPDATE bulk_item SET name = ?, quantity = ?, updated_at = ?,"
+            + " version = version + 1 WHERE id = ? AND version = ? AND tenant_id = ?";
+    private static final BulkTable<BulkItem> BULK_ITEMS = BulkTable.<BulkItem>builder("bulk_item", "tenant_id")
+            .id("id", UUID.class, BulkItem::id)
+            .version("version", BulkItem::version)
+            .column("name", BulkItem::name)
+            .column("quantity", BulkItem::quantity)
+            .column("updated_at", BulkItem::updatedAt)
+            .build();
+
+    @Param({"row-by-row", "bulk"})
+    private String mode;
+
+    @Param({"1000"})
+    private int rows;
+
+    private final UUID tenantId = UUID.randomUUID();
+    private BenchmarkDatabase database;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private BulkWriter bulkWriter;
+    private List<BulkItem> newItems; // the rows inserted
+    private List<BulkItem> changedItems; // seeded at version 0, the rows updated
+
+    public record BulkItem(UUID id, Long version, String name, int quantity, Instant updatedAt) {}
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        dataSource = new SingleConnectionDataSource(database.url(), database.username(), database.password(), true);
+        final Properties properties = new Properties();
+        properties.setProperty("reWriteBatchedInserts", String.valueOf(mode.equals("bulk")));
+        dataSource.setConnectionProperties(properties);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        // the backend's default batch size, so 1000 rows are one statement
+        bulkWriter = new BulkWriter(
+                new NamedParameterJdbcTemplate(jdbcTemplate),
+                transactionTemplate,
+                securityContextProvider(),
+                new ObjectMapper(),
+                1000);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS bulk_item (id uuid PRIMARY KEY, tenant_id uuid NOT NULL,"
+                + " version bigint NOT NULL, name text NOT NULL, quantity int NOT NULL,"
+                + " updated_at timestamptz NOT NULL)");
+    }
+
+    // Every operation starts from the same table: the rows to update at version 0 and fresh ids to insert. An
+    // operation takes milliseconds, so the per invocation setup does not distort the measurement.
+    @Setup(Level.Invocation)
+    public void resetRows() {
+        jdbcTemplate.execute("TRUNCATE bulk_item");
+        final List<BulkItem> existingItems = new ArrayList<>(rows);
+        newItems = new ArrayList<>(rows);
+        changedItems = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            final UUID existingId = UUID.randomUUID();
+            existingItems.add(new BulkItem(existingId, 0L, "item " + i, i, Instant.now()));
+            newItems.add(new BulkItem(UUID.randomUUID(), null, "item " + i, i, Instant.now()));
+            changedItems.add(new BulkItem(existingId, 0L, "renamed " + i, i + 1, Instant.now()));
+        }
+        bulkWriter.insert(BULK_ITEMS, existingItems);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+        database.close();
+    }
+
+    @Benchmark
+    public int insert() {
+        return mode.equals("bulk") ? bulkWriter.insert(BULK_ITEMS, newItems) : insertRowByRow();
+    }
+
+    @Benchmark
+    public int update() {
+        final int updated = mode.equals("bulk") ? updateBulk() : updateRowByRow();
+        if (updated != rows) {
+            throw new IllegalStateException("Expected " + rows + " updated rows, got " + updated);
+        }
+        return updated;
+    }
+
+    private int insertRowByRow() {
+        return transactionTemplate.execute(status -> {
+            for (BulkItem item : newItems) {
+                jdbcTemplate.update(
+                        INSERT,
+                        tenantId,
+                        item.id(),
+                        0L,
+                        item.name(),
+                        item.quantity(),
+                        Timestamp.from(item.updatedAt()));
+            }
+            return newItems.size();
+        });
+    }
+
+    private int updateRowByRow() {
+        return transactionTemplate.execute(status -> {
+            int updated = 0;
+            for (BulkItem item : changedItems) {
+                updated += jdbcTemplate.update( // 0 would be a version conflict
+                        UPDATE_ROW,
+                        item.name(),
+                        item.quantity(),
+                        Timestamp.from(item.updatedAt()),
+                        item.id(),
+                        item.version(),
+                        tenantId);
+            }
+            return updated;
+        });
+    }
+
+    private int updateBulk() {
+        final BulkUpdateResult result = bulkWriter.update(BULK_ITEMS, changedItems);
+        return result.updated();
+    }
+
+    // a fixed member of the benchmark tenant, the tenant BulkWriter writes to
+    private SecurityContextProvider securityContextProvider() {
+        final SecurityContext securityContext = new SecurityContext() {
+            private final UUID userId = UUID.randomUUID();
+
+            @Override
+            public UUID getUserId() {
+                return userId;
+            }
+
+            @Override
+            public UUID getTenantId() {
+                return tenantId;
+            }
+
+            @Override
+            public Set<String> getRoles() {
+                return Set.of("USER");
+            }
+
+            @Override
+            public Set<String> getPermissions() {
+                return Set.of();
+            }
+        };
+        return new SecurityContextProvider() {
+            @Override
+            public SecurityContext getCurrentContext() {
+                return securityContext;
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package io.preboot.refapp.benchmarks.query;
+
+import io.preboot.refapp.benchmarks.BenchmarkDatabase;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Filtered list queries as a frontend sends them: a random subset of six filters in the order the client chose.
+// "as-sent" builds the SQL in that order, so the same search arrives in up to 1957 different texts and seldom reaches
+// the driver's prepare threshold; "canonical" sorts the filters and takes the SQL from a cache by shape, as the
+// backend's KeysetSqlCache does, so 64 texts cover every search and each is parsed and planned once per connection.
+// Both run with the backend's pgjdbc settings.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class FilterShapeBenchmark {
+    private static final String[] COLUMNS = {"status", "category", "region", "priority", "owner_id", "amount"};
+    private static final int ROWS = 100_000;
+
+    @Param({"as-sent", "canonical"})
+    private String shapes;
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ConcurrentHashMap<List<Integer>, String> sqlByShape = new ConcurrentHashMap<>();
+    private BenchmarkDatabase database;
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        database = BenchmarkDatabase.start();
+        final Properties properties = new Properties();
+        properties.setProperty("user", database.username());
+        properties.setProperty("password", database.password());
+        properties.setProperty("prepareThreshold", "3");
+        properties.setProperty("preparedStatementCacheQueries", "512");
+        properties.setProperty("preparedStatementCacheSizeMiB", "10");
+        connection = DriverManager.getConnection(database.url(), properties);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS search_item");
+            statement.execute("CREATE TABLE search_item (id bigint PRIMARY KEY, tenant_id uuid NOT NULL,"
+                    + " status int NOT NULL, category int NOT NULL, region int NOT NULL, priority int NOT NULL,"
+                    + " owner_id int NOT NULL, amount int NOT NULL)");
+            statement.execute("INSERT INTO search_item SELECT i, '" + tenantId + "', i % 5, i % 20, i % 8, i % 3,"
+                    + " i % 500, i % 1000 FROM generate_series(1, " + ROWS + ") i");
+            statement.execute("CREATE INDEX ON search_item (tenant_id, id)");
+            statement.execute("ANALYZE search_item");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    public int search() throws SQLException {
+        final List<Integer> filters = randomFilters();
+        if (shapes.equals("canonical")) {
+            Collections.sort(filters);
+        }
+        final String sql = shapes.equals("canonical")
+                ? sqlByShape.computeIfAbsent(List.copyOf(filters), FilterShapeBenchmark::sql)
+                : sql(filters);
+        int rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setObject(1, tenantId);
+            for (int i = 0; i < filters.size(); i++) {
+                statement.setInt(i + 2, 1);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    // a random subset of the columns in random order
+    private List<Integer> randomFilters() {
+        final List<Integer> filters = new ArrayList<>(COLUMNS.length);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (random.nextBoolean()) {
+                filters.add(i);
+            }
+        }
+        for (int i = filters.size() - 1; i > 0; i--) {
+            Collections.swap(filters, i, random.nextInt(i + 1));
+        }
+        return filters;
+    }
+
+    private static String sql(List<Integer> filters) {
+        final StringBuilder sql = new StringBuilder("SELECT * FROM search_item WHERE tenant_id = ?");
+        for (int column : filters) {
+            sql.append(" AND ").append(COLUMNS[column]).append(" >= ?");
+        }
+        return sql.append(" ORDER BY id LIMIT 50").toString();
+    }
+}
@@ -0,0 +1,112 @@
+package io.preboot.refapp.benchmarks.query;
+
+import io.preboot.securedata.annotation.Tenant;
+import io.preboot.securedata.context.SecurityContext;
+import io.preboot.securedata.context.SecurityContextProvider;
+import io.preboot.securedata.repository.SecureRepository;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
+import org.springframework.data.relational.core.mapping.Table;
+
+// A tenant table behind a SecureRepository, wired like the backend's features. The security context is a fixed
+// member of the benchmark tenant, so every repository call goes through the same tenant filtering as a request.
+@SpringBootApplication
+@EnableJdbcRepositories(basePackages = {"io.preboot"})
+public class SearchBenchmarkApplication {
+    static final UUID TENANT_ID = UUID.randomUUID();
+
+    @Bean
+    SecurityContextProvider securityContextProvider() {
+        final SecurityContext securityContext = new SecurityContext() {
+            private final UUID userId = UUID.randomUUID();
+
+            @Override
+            public UUID getUserId() {
+                return userId;
+            }
+
+            @Override
+            public UUID getTenantId() {
+                return TENANT_ID;
+            }
+
+            @Override
+            public Set<String> getRoles() {
+                return Set.of("USER");
+            }
+
+            @Override
+            public Set<String> getPermissions() {
+                return Set.of();
+            }
+        };
+        return new SecurityContextProvider() {
+            @Override
+            public SecurityContext getCurrentContext() {
+                return securityContext;
+            }
+        };
+    }
+
+    public interface SearchItemRepository extends SecureRepository<SearchItem, Long> {}
+
+    @Table("search_item")
+    public static class SearchItem {
+        @Id
+        private Long id;
+
+        @Tenant
+        private UUID tenantId;
+
+        private String status;
+        private int amount;
+
+        @Version
+        private Long version;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public UUID getTenantId() {
+            return tenantId;
+        }
+
+        public void setTenantId(UUID tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public int getAmount() {
+            return amount;
+        }
+
+        public void setAmount(int amount) {
+            this.amount = amount;
+        }
+
+        public Long getVersion() {
+            return version;
+        }
+
+        public void setVersion(Long version) {
+            this.version = version;
+        }
+    }
+}
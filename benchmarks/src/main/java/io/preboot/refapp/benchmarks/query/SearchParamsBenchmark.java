@@ -0,0 +1,106 @@
+package io.preboot.refapp.benchmarks.query;
+
+import io.preboot.query.FilterCriteria;
+import io.preboot.query.SearchParams;
+import io.preboot.refapp.benchmarks.BenchmarkDatabase;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// A filtered list query through SecureRepository.findAll(SearchParams) against a real Postgres: building the criteria,
+// adding the tenant filter, generating the SQL, running it and mapping the page. "plainJdbc" runs the same query
+// written by hand, so the difference is what the secure data layer adds on top of the database work.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class SearchParamsBenchmark {
+    private static final int TENANTS = 10;
+    private static final int ROWS_PER_TENANT = 10_000;
+
+    @Param({"simple", "typical"})
+    private String filter;
+
+    private BenchmarkDatabase database;
+    private ConfigurableApplicationContext applicationContext;
+    private SearchBenchmarkApplication.SearchItemRepository repository;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        applicationContext = new SpringApplicationBuilder(SearchBenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(database.springProperties())
+                .run();
+        repository = applicationContext.getBean(SearchBenchmarkApplication.SearchItemRepository.class);
+        jdbcTemplate = applicationContext.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS search_item");
+        jdbcTemplate.execute("CREATE TABLE search_item (id bigserial PRIMARY KEY, tenant_id uuid NOT NULL,"
+                + " status varchar(32) NOT NULL, amount int NOT NULL, version bigint NOT NULL)");
+        // the benchmark tenant plus others, so the tenant filter has rows to exclude
+        for (int tenant = 0; tenant < TENANTS; tenant++) {
+            final UUID tenantId = tenant == 0 ? SearchBenchmarkApplication.TENANT_ID : UUID.randomUUID();
+            jdbcTemplate.update(
+                    "INSERT INTO search_item (tenant_id, status, amount, version)"
+                            + " SELECT ?, CASE WHEN i % 4 = 0 THEN 'ACTIVE' ELSE 'CLOSED' END, i % 1000, 0"
+                            + " FROM generate_series(1, ?) i",
+                    tenantId,
+                    ROWS_PER_TENANT);
+        }
+        jdbcTemplate.execute("CREATE INDEX ON search_item (tenant_id, status)");
+        jdbcTemplate.execute("ANALYZE search_item");
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Page<SearchBenchmarkApplication.SearchItem> secureRepository() {
+        return repository.findAll(searchParams());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> plainJdbc() {
+        return filter.equals("simple")
+                ? jdbcTemplate.queryForList(
+                        "SELECT * FROM search_item WHERE tenant_id = ? AND status = ? LIMIT 20",
+                        SearchBenchmarkApplication.TENANT_ID,
+                        "ACTIVE")
+                : jdbcTemplate.queryForList(
+                        "SELECT * FROM search_item WHERE tenant_id = ? AND status = ? AND amount > ? LIMIT 20",
+                        SearchBenchmarkApplication.TENANT_ID,
+                        "ACTIVE",
+                        100);
+    }
+
+    private SearchParams searchParams() {
+        return filter.equals("simple")
+                ? SearchParams.criteria(FilterCriteria.eq("status", "ACTIVE")).build()
+                : SearchParams.criteria(FilterCriteria.eq("status", "ACTIVE"), FilterCriteria.gt("amount", 100))
+                        .build();
+    }
+}
@@ -0,0 +1,64 @@
+package io.preboot.refapp.benchmarks.tasks;
+
+import io.preboot.eventbus.EventHandler;
+import io.preboot.eventbus.EventPublisher;
+import io.preboot.eventbus.LocalEventHandlerRepository;
+import io.preboot.eventbus.LocalEventPublisher;
+import io.preboot.eventbus.tasks.ExpandingTimeOfBackOffPolicy;
+import io.preboot.eventbus.tasks.TaskConfigFactory;
+import io.preboot.eventbus.tasks.TaskPublisher;
+import io.preboot.eventbus.tasks.TaskRepository;
+import io.preboot.eventbus.tasks.TaskRunner;
+import io.preboot.eventbus.tasks.TimeBasedDeadQueuePolicy;
+import java.time.Duration;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+// Same task wiring as the backend's TasksConfig and EventBusConfig, on a dedicated table
+@SpringBootApplication
+public class TaskBenchmarkApplication {
+    static final String TASKS_TABLE = "benchmark_tasks";
+
+    @Bean
+    LocalEventHandlerRepository localEventHandlerRepository(ApplicationContext applicationContext) {
+        return new LocalEventHandlerRepository(applicationContext);
+    }
+
+    @Bean
+    EventPublisher eventPublisher(LocalEventHandlerRepository localEventHandlerRepository) {
+        return new LocalEventPublisher(localEventHandlerRepository);
+    }
+
+    @Bean
+    TaskRepository taskRepository(TaskConfigFactory taskConfigFactory) {
+        return taskConfigFactory.createTaskRepository(TASKS_TABLE);
+    }
+
+    @Bean
+    TaskPublisher taskPublisher(TaskConfigFactory taskConfigFactory, TaskRepository taskRepository) {
+        return taskConfigFactory.createTaskPublisher(taskRepository);
+    }
+
+    @Bean
+    TaskRunner taskRunner(
+            TaskConfigFactory taskConfigFactory, EventPublisher eventPublisher, TaskRepository taskRepository) {
+        return taskConfigFactory.createTaskRunner(
+                eventPublisher,
+                taskRepository,
+                new TimeBasedDeadQueuePolicy(Duration.ofDays(15)),
+                new ExpandingTimeOfBackOffPolicy(Duration.ofMinutes(2), 60, 2, 60 * 24));
+    }
+
+    public record BenchmarkTask(UUID id) {}
+
+    @Component
+    static class BenchmarkTaskHandler {
+        @EventHandler
+        public void onBenchmarkTask(BenchmarkTask task) {
+            // no-op, the benchmark measures the task infrastructure only
+        }
+    }
+}
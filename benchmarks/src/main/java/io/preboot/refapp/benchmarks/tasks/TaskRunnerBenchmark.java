@@ -0,0 +1,77 @@
+package io.preboot.refapp.benchmarks.tasks;
+
+import io.preboot.eventbus.tasks.TaskPublisher;
+import io.preboot.eventbus.tasks.TaskRunner;
+import io.preboot.refapp.benchmarks.BenchmarkDatabase;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Per operation cost of the task queue against a real Postgres. Runs single threaded on an otherwise empty queue,
+// so publishToCompletion is publish + claim + handler + completion with no queueing delay.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class TaskRunnerBenchmark {
+    private static final int MAX_CLAIM_ATTEMPTS = 1000;
+
+    private BenchmarkDatabase database;
+    private ConfigurableApplicationContext applicationContext;
+    private TaskPublisher taskPublisher;
+    private TaskRunner taskRunner;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        applicationContext = new SpringApplicationBuilder(TaskBenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(database.springProperties())
+                .run();
+        taskPublisher = applicationContext.getBean(TaskPublisher.class);
+        taskRunner = applicationContext.getBean(TaskRunner.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+        database.close();
+    }
+
+    @Benchmark
+    public String publishToCompletion() {
+        taskPublisher.publish(new TaskBenchmarkApplication.BenchmarkTask(UUID.randomUUID()));
+        for (int i = 0; i < MAX_CLAIM_ATTEMPTS; i++) {
+            final String taskType = taskRunner.runTask();
+            if (taskType != null) {
+                return taskType;
+            }
+        }
+        throw new IllegalStateException("Published task was not claimed");
+    }
+
+    @Benchmark
+    public boolean hasPendingTasks() {
+        return taskRunner.hasPendingTasks();
+    }
+
+    @Benchmark
+    public String runTaskOnEmptyQueue() {
+        return taskRunner.runTask();
+    }
+}
@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+# Time to first request of the backend: launches the jar, polls /api/healthcheck until it answers 200 and reports the
+# median, min and max over several runs for each startup variant:
+#   default  - plain jar
+#   startup  - "startup" profile (lazy init, Liquibase skipped when the changelogs are unchanged)
+#   cds      - "startup" profile on the extracted jar with an AppCDS archive from a training run
+# Set AOT=true when the jar was built with mvn -Paot to run every variant with the AOT initializers.
+#
+# Usage: startup-benchmark.sh <backend jar> [runs] [variant...]
+# The database is taken from DATABASE_URL / DATABASE_USERNAME / DATABASE_PASSWORD like the backend itself.
+set -euo pipefail
+
+JAR=$(realpath "${1:?usage: startup-benchmark.sh <backend jar> [runs] [variant...]}")
+shift
+RUNS=${1:-5}
+shift $(($# > 0 ? 1 : 0))
+if (($# > 0)); then
+    VARIANTS=("$@")
+else
+    VARIANTS=(default startup cds)
+fi
+
+PORT=${BENCHMARK_PORT:-18080}
+TIMEOUT_SECONDS=${BENCHMARK_TIMEOUT_SECONDS:-120}
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+JVM_ARGS=()
+if [[ "${AOT:-false}" == "true" ]]; then
+    JVM_ARGS+=(-Dspring.aot.enabled=true)
+fi
+APP_ARGS=(--server.port="$PORT" --management.server.port=$((PORT + 1)))
+
+now_millis() {
+    date +%s%3N
+}
+
+# prints the milliseconds from launch until the first successful request
+measure() {
+    local log="$WORK_DIR/run.log"
+    local started
+    started=$(now_millis)
+    java "$@" "${APP_ARGS[@]}" > "$log" 2>&1 &
+    local pid=$!
+    local deadline=$((started + TIMEOUT_SECONDS * 1000))
+    until curl -fs -o /dev/null "http://localhost:$PORT/api/healthcheck"; do
+        if ! kill -0 "$pid" 2> /dev/null || (($(now_millis) > deadline)); then
+            kill "$pid" 2> /dev/null || true
+            echo "Backend did not become ready, log:" >&2
+            tail -n 50 "$log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    echo $(($(now_millis) - started))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+}
+
+prepare_cds() {
+    java -Djarmode=tools -jar "$JAR" extract --destination "$WORK_DIR/cds" > /dev/null
+    # the training run starts the context and exits, it needs the database like a regular start
+    java "${JVM_ARGS[@]}" -XX:ArchiveClassesAtExit="$WORK_DIR/app.jsa" -Dspring.context.exit=onRefresh \
+        -jar "$WORK_DIR/cds/$(basename "$JAR")" --spring.profiles.active=startup "${APP_ARGS[@]}" > /dev/null
+}
+
+variant_args() {
+    case "$1" in
+        default) echo "${JVM_ARGS[*]} -jar $JAR" ;;
+        startup) echo "${JVM_ARGS[*]} -Dspring.profiles.active=startup -jar $JAR" ;;
+        cds)
+            echo "${JVM_ARGS[*]} -XX:SharedArchiveFile=$WORK_DIR/app.jsa -Dspring.profiles.active=startup" \
+                "-jar $WORK_DIR/cds/$(basename "$JAR")"
+            ;;
+        *) echo "Unknown variant $1" >&2; exit 1 ;;
+    esac
+}
+
+printf "%-10s %10s %10s %10s\n" "variant" "median ms" "min ms" "max ms"
+for variant in "${VARIANTS[@]}"; do
+    if [[ "$variant" == "cds" ]]; then
+        prepare_cds
+    fi
+    read -r -a args <<< "$(variant_args "$variant")"
+    measure "${args[@]}" > /dev/null # warm the OS file cache and the database
+    timings=()
+    for ((i = 0; i < RUNS; i++)); do
+        timings+=("$(measure "${args[@]}")")
+    done
+    mapfile -t sorted < <(printf "%s\n" "${timings[@]}" | sort -n)
+    printf "%-10s %10s %10s %10s\n" "$variant" "${sorted[$((RUNS / 2))]}" "${sorted[0]}" "${sorted[$((RUNS - 1))]}"
+done